@@ -0,0 +1,66 @@
+package com.carlos.expensetracker.dto.request;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.FilterPeriod;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//filter resolution done on every list, search and statistics request (several times per request)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseFilterRequestBenchmark {
+
+    private ExpenseFilterRequest periodFilter;
+    private ExpenseFilterRequest customFilter;
+    private ExpenseFilterRequest categoriesFilter;
+
+    @Setup
+    public void setUp() {
+        periodFilter = new ExpenseFilterRequest(
+                null, null, FilterPeriod.LAST_MONTH, null, null, null, null, null, null);
+
+        customFilter = new ExpenseFilterRequest(
+                null, null, FilterPeriod.CUSTOM, LocalDate.now().minusDays(90), LocalDate.now(),
+                new BigDecimal("10.00"), new BigDecimal("500.00"), null, null);
+
+        categoriesFilter = new ExpenseFilterRequest(
+                ExpenseCategory.GROCERIES, List.of(ExpenseCategory.HEALTH, ExpenseCategory.TRANSPORT),
+                null, null, null, null, null, null, null);
+    }
+
+    //resolved from LocalDate.now()
+    @Benchmark
+    public void periodDates(Blackhole blackhole) {
+        blackhole.consume(periodFilter.getEffectiveStartDate());
+        blackhole.consume(periodFilter.getEffectiveEndDate());
+    }
+
+    @Benchmark
+    public void customDates(Blackhole blackhole) {
+        blackhole.consume(customFilter.getEffectiveStartDate());
+        blackhole.consume(customFilter.getEffectiveEndDate());
+    }
+
+    //what the validation and the query compilation ask of a filter
+    @Benchmark
+    public void validateAndClassify(Blackhole blackhole) {
+        blackhole.consume(customFilter.isDateRangeValid());
+        blackhole.consume(customFilter.isAmountRangeValid());
+        blackhole.consume(customFilter.hasFilters());
+        blackhole.consume(customFilter.hasRowFilters());
+    }
+
+    @Benchmark
+    public Object effectiveCategories() {
+        return categoriesFilter.getEffectiveCategories();
+    }
+}
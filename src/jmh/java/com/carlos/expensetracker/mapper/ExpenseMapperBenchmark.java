@@ -0,0 +1,65 @@
+package com.carlos.expensetracker.mapper;
+
+import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//per-expense mapping cost on the create path (request -> entity -> response)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseMapperBenchmark {
+
+    private ExpenseMapper expenseMapper;
+    private CreateExpenseRequest request;
+    private User user;
+    private Expense expense;
+
+    @Setup
+    public void setUp() {
+        expenseMapper = new ExpenseMapper();
+
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .username("bench")
+                .email("bench@email.com")
+                .role(UserRole.USER)
+                .build();
+
+        request = new CreateExpenseRequest(
+                new BigDecimal("42.50"),
+                ExpenseCategory.GROCERIES,
+                "Weekly groceries",
+                LocalDate.now().minusDays(3)
+        );
+
+        expense = expenseMapper.toEntity(request, user);
+        expense.setId(UUID.randomUUID());
+        expense.setCreatedAt(LocalDateTime.now());
+        expense.setUpdatedAt(LocalDateTime.now());
+        expense.setVersion(0L);
+    }
+
+    @Benchmark
+    public Expense toEntity() {
+        return expenseMapper.toEntity(request, user);
+    }
+
+    @Benchmark
+    public ExpenseResponse toResponse() {
+        return expenseMapper.toResponse(expense);
+    }
+}
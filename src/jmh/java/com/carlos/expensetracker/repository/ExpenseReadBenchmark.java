@@ -0,0 +1,122 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.ExpensetrackerApplication;
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import com.carlos.expensetracker.mapper.ExpenseMapper;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//one 100-row page of the expense list inside a read-only transaction, as the service runs it:
+//managed entities copied by ExpenseMapper (before) vs the constructor projection (after)
+//against the in-memory test database, so the numbers are the hibernate side of the request, not the network
+//gc.alloc.rate.norm from -prof gc (on in the benchmark profile) is the allocation per page
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseReadBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int EXPENSES = 1_000;
+
+    //the list query before the projection, keyset order and the extra row for hasNext included
+    private static final String ENTITY_PAGE =
+            "SELECT e FROM Expense e WHERE e.user.id = :userId ORDER BY e.expenseDate DESC, e.id DESC";
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+    private ExpenseRepository expenseRepository;
+    private ExpenseMapper expenseMapper;
+    private UUID userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ExpensetrackerApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                //the dev logging (every statement and bind) would be most of what gets measured
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=OFF",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF",
+                        "logging.level.com.carlos.expensetracker=WARN"
+                )
+                .run();
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        entityManager = context.getBean(EntityManager.class);
+        expenseRepository = context.getBean(ExpenseRepository.class);
+        expenseMapper = context.getBean(ExpenseMapper.class);
+
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        userId = new TransactionTemplate(transactionManager).execute(status -> {
+            User user = context.getBean(UserRepository.class).save(User.builder()
+                    .username("bench")
+                    .email("bench@email.com")
+                    .password("not-a-hash")
+                    .role(UserRole.USER)
+                    .build());
+
+            ExpenseCategory[] categories = ExpenseCategory.values();
+
+            for (int i = 0; i < EXPENSES; i++) {
+                expenseRepository.save(Expense.builder()
+                        .user(user)
+                        .amount(BigDecimal.valueOf(100 + i, 2))
+                        .category(categories[i % categories.length])
+                        .description("Expense number " + i)
+                        .expenseDate(LocalDate.now().minusDays(i % 365))
+                        .build());
+            }
+
+            return user.getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> entitiesThenMapper() {
+        return readOnly.execute(status -> entityManager.createQuery(ENTITY_PAGE, Expense.class)
+                .setParameter("userId", userId)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList()
+                .stream()
+                .limit(PAGE_SIZE)
+                .map(expenseMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public Slice<ExpenseResponse> projection() {
+        return readOnly.execute(status -> expenseRepository.findByFilter(
+                userId, ExpenseFilterRequest.empty(), PageRequest.of(0, PAGE_SIZE)));
+    }
+}
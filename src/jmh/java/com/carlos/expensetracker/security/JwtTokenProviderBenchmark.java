@@ -0,0 +1,80 @@
+package com.carlos.expensetracker.security;
+
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//per-request token verification cost: legacy path vs shared parser vs verified-claims cache, and token issuing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "Qk1lO29WiKmgfcG/WTCZ/HQ/i+k/QbDm0m0A2f8TihM=";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private SecretKey secretKey;
+    private String token;
+    private UsernamePasswordAuthenticationToken authentication;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider(SECRET, 3_600_000);
+        secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .username("bench")
+                .email("bench@email.com")
+                .role(UserRole.USER)
+                .build();
+
+        authentication = new UsernamePasswordAuthenticationToken(new CustomUserDetails(user), null, List.of());
+        token = jwtTokenProvider.generateToken(authentication);
+    }
+
+    //what the filter did before: validateToken + getEmailFromToken, each building its own parser
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token);
+
+        Claims claims = Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+        return claims.get("email", String.class);
+    }
+
+    @Benchmark
+    public TokenClaims sharedParserUncached() {
+        return jwtTokenProvider.parseToken(token);
+    }
+
+    @Benchmark
+    public TokenClaims verifiedCacheHit() {
+        return jwtTokenProvider.verifyToken(token).orElseThrow();
+    }
+
+    //the boolean check, on top of the cached verification
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+
+    //login: claims, signature and compact serialization
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenProvider.generateToken(authentication);
+    }
+
+}
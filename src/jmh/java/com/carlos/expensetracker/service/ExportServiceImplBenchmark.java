@@ -0,0 +1,75 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.repository.ExpenseRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//csv formatting of an export, without the database: the repository hands out prebuilt rows
+//and the bytes go nowhere, so what is left is the per-row formatting and writer cost
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportServiceImplBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private ExportServiceImpl exportService;
+    private UUID userId;
+
+    @Setup
+    public void setUp() {
+        userId = UUID.randomUUID();
+        List<ExpenseResponse> expenses = new ArrayList<>(rows);
+        ExpenseCategory[] categories = ExpenseCategory.values();
+
+        for (int i = 0; i < rows; i++) {
+            expenses.add(new ExpenseResponse(
+                    UUID.randomUUID(),
+                    userId,
+                    BigDecimal.valueOf(100 + i, 2),
+                    categories[i % categories.length],
+                    //every tenth description needs its quotes doubled
+                    i % 10 == 0 ? "Dinner at \"The Place\"" : "Expense number " + i,
+                    LocalDate.now().minusDays(i % 365),
+                    LocalDateTime.now(),
+                    LocalDateTime.now(),
+                    0L
+            ));
+        }
+
+        ExpenseRepository repository = (ExpenseRepository) Proxy.newProxyInstance(
+                ExpenseRepository.class.getClassLoader(),
+                new Class<?>[]{ExpenseRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("streamByFilter")) {
+                        return expenses.stream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+
+        exportService = new ExportServiceImpl(repository);
+    }
+
+    @Benchmark
+    public void exportToCsv() throws IOException {
+        exportService.exportToCsv(userId, ExpenseFilterRequest.empty(), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,420 @@
+package com.carlos.expensetracker.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+//seeds the synthetic population straight into the schema flyway created (start the application once first)
+//users, expenses and their daily rollups are COPYed in text format; counters are written as they end up,
+//so the application finds a consistent database and the rollup check has nothing to repair
+//expense counts per user follow ZipfDistribution, dates lean towards the present
+final class DatasetGenerator {
+
+    //users per COPY/transaction are grouped until roughly this many expenses
+    private static final long EXPENSES_PER_CHUNK = 250_000;
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private static final String COPY_USERS = """
+            COPY users (id, username, email, password, role, expense_count, data_version, created_at, updated_at) FROM STDIN
+            """;
+
+    private static final String COPY_EXPENSES = """
+            COPY expenses (id, user_id, amount, category, description, expense_date, created_at, updated_at, version) FROM STDIN
+            """;
+
+    private static final String COPY_ROLLUPS = """
+            COPY expense_daily_rollups (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount) FROM STDIN
+            """;
+
+    //everything but the constraint-backed indexes (primary key)
+    private static final String SECONDARY_INDEXES = """
+            SELECT indexname, indexdef FROM pg_indexes
+            WHERE schemaname = current_schema() AND tablename = 'expenses'
+            AND indexname NOT IN (SELECT conname FROM pg_constraint WHERE conrelid = 'expenses'::regclass)
+            """;
+
+    private final Settings settings;
+    private final AtomicLong written = new AtomicLong();
+
+    DatasetGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    void run() throws Exception {
+        long started = System.nanoTime();
+        Map<String, String> deferred = Map.of();
+
+        try (Connection connection = connect()) {
+            prepare(connection);
+
+            if (settings.deferIndexes()) {
+                deferred = dropSecondaryIndexes(connection);
+            }
+        }
+
+        long[] counts = expenseCounts();
+        UUID[] ids = new UUID[settings.users()];
+        Arrays.setAll(ids, i -> UUID.randomUUID());
+
+        copyUsers(ids, counts);
+        copyExpenses(ids, counts);
+
+        if (!deferred.isEmpty()) {
+            createIndexes(deferred);
+        }
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE expenses");
+            statement.execute("ANALYZE expense_daily_rollups");
+        }
+
+        System.out.printf("Seeded %,d users and %,d expenses in %s%n",
+                settings.users(), written.get(), Duration.ofNanos(System.nanoTime() - started).withNanos(0));
+    }
+
+    private void prepare(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT data_version FROM users LIMIT 0").close();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Schema not found or not migrated - start the application once against "
+                    + settings.url() + " first", ex);
+        }
+
+        long existing;
+
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE email LIKE ?")) {
+            statement.setString(1, SyntheticData.EMAIL_PATTERN);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                existing = rs.getLong(1);
+            }
+        }
+
+        if (existing == 0) {
+            return;
+        }
+
+        if (!settings.reset()) {
+            throw new IllegalStateException(existing + " synthetic users already exist - pass --reset to replace them");
+        }
+
+        System.out.printf("Removing %,d synthetic users and their expenses...%n", existing);
+
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM users WHERE email LIKE ?")) {
+            statement.setString(1, SyntheticData.EMAIL_PATTERN);
+            statement.executeUpdate();
+        }
+    }
+
+    //the per-row cost of the GIN indexes dominates a large load; building them once at the end is much cheaper
+    private Map<String, String> dropSecondaryIndexes(Connection connection) throws SQLException {
+        Map<String, String> definitions = new LinkedHashMap<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SECONDARY_INDEXES)) {
+            while (rs.next()) {
+                definitions.put(rs.getString("indexname"), rs.getString("indexdef"));
+            }
+        }
+
+        //printed first: if the load dies, these recreate what was dropped
+        System.out.println("Dropping secondary indexes on expenses until the load ends:");
+        definitions.values().forEach(definition -> System.out.println("  " + definition + ";"));
+
+        try (Statement statement = connection.createStatement()) {
+            for (String name : definitions.keySet()) {
+                statement.execute("DROP INDEX " + name);
+            }
+        }
+
+        return definitions;
+    }
+
+    private void createIndexes(Map<String, String> definitions) throws Exception {
+        System.out.println("Recreating secondary indexes...");
+
+        runAll(definitions.values().stream().<Task>map(definition -> () -> {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                statement.execute("SET maintenance_work_mem = '256MB'");
+                statement.execute(definition);
+            }
+        }).toList());
+    }
+
+    //zipf share of the total, at least one expense each
+    private long[] expenseCounts() {
+        ZipfDistribution distribution = new ZipfDistribution(settings.users(), settings.skew());
+        long[] counts = new long[settings.users()];
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.max(1, Math.round(settings.expenses() * distribution.probability(i)));
+        }
+
+        return counts;
+    }
+
+    private void copyUsers(UUID[] ids, long[] counts) throws SQLException {
+        String hash = new BCryptPasswordEncoder().encode(SyntheticData.PASSWORD);
+        String createdAt = LocalDate.now().minusDays(settings.days()).atStartOfDay().toString();
+        StringBuilder rows = new StringBuilder();
+
+        try (Connection connection = connect()) {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_USERS);
+
+            for (int i = 0; i < ids.length; i++) {
+                rows.append(ids[i]).append('\t')
+                        .append(SyntheticData.username(i)).append('\t')
+                        .append(SyntheticData.email(i)).append('\t')
+                        .append(hash).append('\t')
+                        .append("USER\t")
+                        .append(counts[i]).append('\t')
+                        .append("0\t")
+                        .append(createdAt).append('\t')
+                        .append(createdAt).append('\n');
+
+                flushIfFull(copy, rows);
+            }
+
+            flush(copy, rows);
+            copy.endCopy();
+        }
+
+        System.out.printf("Users: %,d%n", ids.length);
+    }
+
+    private void copyExpenses(UUID[] ids, long[] counts) throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        long total = Arrays.stream(counts).sum();
+        int from = 0;
+
+        while (from < ids.length) {
+            int to = from;
+            long chunk = 0;
+
+            while (to < ids.length && (to == from || chunk < EXPENSES_PER_CHUNK)) {
+                chunk += counts[to++];
+            }
+
+            int first = from;
+            int last = to;
+            long chunkSeed = settings.seed() + tasks.size();
+            tasks.add(() -> copyChunk(ids, counts, first, last, new SplittableRandom(chunkSeed), total));
+            from = to;
+        }
+
+        runAll(tasks);
+    }
+
+    //one transaction: the expenses of the users in [from, to), then their rollups folded while generating
+    private void copyChunk(UUID[] ids, long[] counts, int from, int to, SplittableRandom random, long total)
+            throws SQLException {
+        LocalDate today = LocalDate.now();
+        String[] dates = new String[settings.days()];
+        Arrays.setAll(dates, age -> today.minusDays(age).toString());
+
+        int categories = SyntheticData.categoryCount();
+        long[] sums = new long[settings.days() * categories];
+        long[] expenseCounts = new long[sums.length];
+        long[] mins = new long[sums.length];
+        long[] maxes = new long[sums.length];
+
+        StringBuilder rows = new StringBuilder(FLUSH_BYTES + 4096);
+        StringBuilder rollups = new StringBuilder();
+
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            PGConnection pg = connection.unwrap(PGConnection.class);
+            CopyIn copy = pg.getCopyAPI().copyIn(COPY_EXPENSES);
+
+            for (int user = from; user < to; user++) {
+                String userId = ids[user].toString();
+                Arrays.fill(expenseCounts, 0);
+
+                for (long n = 0; n < counts[user]; n++) {
+                    int age = age(random);
+                    int category = SyntheticData.category(random);
+                    long cents = SyntheticData.amountCents(category, random);
+                    String description = SyntheticData.description(category, random);
+                    int minuteOfDay = (8 + random.nextInt(14)) * 60 + random.nextInt(60);
+
+                    rows.append(randomUuid(random)).append('\t')
+                            .append(userId).append('\t');
+                    appendAmount(rows, cents).append('\t')
+                            .append(SyntheticData.categoryName(category)).append('\t')
+                            .append(description != null ? description : "\\N").append('\t')
+                            .append(dates[age]).append('\t');
+                    appendTimestamp(rows, dates[age], minuteOfDay).append('\t');
+                    appendTimestamp(rows, dates[age], minuteOfDay).append('\t')
+                            .append("0\n");
+
+                    int cell = age * categories + category;
+
+                    if (expenseCounts[cell]++ == 0) {
+                        sums[cell] = 0;
+                        mins[cell] = cents;
+                        maxes[cell] = cents;
+                    }
+
+                    sums[cell] += cents;
+                    mins[cell] = Math.min(mins[cell], cents);
+                    maxes[cell] = Math.max(maxes[cell], cents);
+
+                    flushIfFull(copy, rows);
+                }
+
+                for (int cell = 0; cell < expenseCounts.length; cell++) {
+                    if (expenseCounts[cell] > 0) {
+                        rollups.append(userId).append('\t')
+                                .append(dates[cell / categories]).append('\t')
+                                .append(SyntheticData.categoryName(cell % categories)).append('\t');
+                        appendAmount(rollups, sums[cell]).append('\t')
+                                .append(expenseCounts[cell]).append('\t');
+                        appendAmount(rollups, mins[cell]).append('\t');
+                        appendAmount(rollups, maxes[cell]).append('\n');
+                    }
+                }
+            }
+
+            flush(copy, rows);
+            long copied = copy.endCopy();
+
+            copy = pg.getCopyAPI().copyIn(COPY_ROLLUPS);
+            flush(copy, rollups);
+            copy.endCopy();
+
+            connection.commit();
+
+            long done = written.addAndGet(copied);
+            System.out.printf("Expenses: %,d / %,d%n", done, total);
+        }
+    }
+
+    //days before today, exponential with a mean of a quarter of the history: recent months are the busiest
+    private int age(SplittableRandom random) {
+        double mean = settings.days() / 4.0;
+
+        while (true) {
+            int age = (int) (-Math.log(1 - random.nextDouble()) * mean);
+
+            if (age < settings.days()) {
+                return age;
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(settings.url(), settings.user(), settings.password());
+    }
+
+    private void runAll(List<Task> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threads());
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (Task task : tasks) {
+                futures.add(executor.submit(() -> {
+                    task.run();
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //version 4 from the chunk's generator - UUID.randomUUID() would serialize every thread on SecureRandom
+    private static UUID randomUuid(SplittableRandom random) {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(most, least);
+    }
+
+    private static StringBuilder appendTimestamp(StringBuilder builder, String date, int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return builder.append(date).append(' ')
+                .append(hour < 10 ? "0" : "").append(hour).append(':')
+                .append(minute < 10 ? "0" : "").append(minute).append(":00");
+    }
+
+    private static StringBuilder appendAmount(StringBuilder builder, long cents) {
+        long fraction = cents % 100;
+        return builder.append(cents / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+    }
+
+    private static void flushIfFull(CopyIn copy, StringBuilder rows) throws SQLException {
+        if (rows.length() >= FLUSH_BYTES) {
+            flush(copy, rows);
+        }
+    }
+
+    private static void flush(CopyIn copy, StringBuilder rows) throws SQLException {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    record Settings(
+            String url,
+            String user,
+            String password,
+            int users,
+            long expenses,
+            double skew,
+            int days,
+            int threads,
+            long seed,
+            boolean reset,
+            boolean deferIndexes
+    ) {
+
+        static Settings from(LoadTest.Options options) {
+            return new Settings(
+                    options.stringOrEnv("db-url", "DATABASE_URL", "jdbc:postgresql://localhost:5432/expensetracker_db"),
+                    options.stringOrEnv("db-user", "DATABASE_USERNAME", "postgres"),
+                    options.stringOrEnv("db-password", "DATABASE_PASSWORD", "postgres"),
+                    options.integer("users", 10_000),
+                    options.longValue("expenses", 50_000_000),
+                    options.decimal("skew", 0.5),
+                    options.integer("days", 1095),
+                    options.integer("threads", Runtime.getRuntime().availableProcessors()),
+                    options.longValue("seed", 42),
+                    options.flag("reset"),
+                    options.flag("defer-indexes")
+            );
+        }
+    }
+}
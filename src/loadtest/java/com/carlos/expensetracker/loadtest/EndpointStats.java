@@ -0,0 +1,82 @@
+package com.carlos.expensetracker.loadtest;
+
+import java.util.Arrays;
+
+//latencies and outcomes of one endpoint during the measured window
+//every sample is kept (8 bytes each), so the percentiles are exact rather than bucketed
+final class EndpointStats {
+
+    private long[] latencies = new long[1024];
+    private int size;
+    private long rateLimited;
+    private long shed;
+    private long errors;
+
+    synchronized void record(long nanos, int status) {
+        if (status == 429) {
+            rateLimited++;
+            return;
+        }
+
+        if (status == 503) {
+            shed++;
+            return;
+        }
+
+        if (status >= 400) {
+            errors++;
+            return;
+        }
+
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+
+        latencies[size++] = nanos;
+    }
+
+    //timeouts, refused connections
+    synchronized void recordFailure() {
+        errors++;
+    }
+
+    synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+
+        return new Summary(
+                size,
+                rateLimited,
+                shed,
+                errors,
+                size / seconds,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.95),
+                percentile(sorted, 0.99),
+                size > 0 ? sorted[size - 1] / 1e6 : 0
+        );
+    }
+
+    //nearest rank, in milliseconds
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1e6;
+    }
+
+    record Summary(
+            long ok,
+            long rateLimited,
+            long shed,
+            long errors,
+            double throughput,
+            double p50Millis,
+            double p95Millis,
+            double p99Millis,
+            double maxMillis
+    ) {
+    }
+}
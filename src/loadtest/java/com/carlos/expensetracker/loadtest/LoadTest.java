@@ -0,0 +1,92 @@
+package com.carlos.expensetracker.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+//entry point of the load-test harness (loadtest profile)
+//  seed: fills a local postgres with a synthetic population through COPY
+//  run:  drives a running instance with a mixed workload and reports latency per endpoint
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+
+        Options options = Options.parse(args);
+
+        switch (args[0]) {
+            case "seed" -> new DatasetGenerator(DatasetGenerator.Settings.from(options)).run();
+            case "run" -> new WorkloadDriver(WorkloadDriver.Settings.from(options)).run();
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.out.println("""
+                usage: seed [--users 10000] [--expenses 50000000] [--skew 0.5] [--days 1095] [--threads N]
+                            [--seed 42] [--reset] [--defer-indexes]
+                            [--db-url URL] [--db-user USER] [--db-password PASSWORD]
+                       run  [--base-url http://localhost:8080] [--users 10000] [--skew 0.5] [--concurrency 200]
+                            [--duration 60s] [--warmup 10s] [--think-time 0ms] [--seed 42]
+                            [--mix list=40,search=25,statistics=25,export=5,login=5] [--output report.json]
+                """);
+    }
+
+    //--name value pairs after the command; a flag without a value is "true"
+    record Options(Map<String, String> values) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+
+            for (int i = 1; i < args.length; i++) {
+                if (!args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                }
+
+                String name = args[i].substring(2);
+                boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+                values.put(name, hasValue ? args[++i] : "true");
+            }
+
+            return new Options(values);
+        }
+
+        String string(String name, String defaultValue) {
+            return values.getOrDefault(name, defaultValue);
+        }
+
+        //the same variables the application reads, so one .env serves both
+        String stringOrEnv(String name, String variable, String defaultValue) {
+            String fromEnv = System.getenv(variable);
+            return string(name, fromEnv != null ? fromEnv : defaultValue);
+        }
+
+        int integer(String name, int defaultValue) {
+            return values.containsKey(name) ? Integer.parseInt(values.get(name).replace("_", "")) : defaultValue;
+        }
+
+        long longValue(String name, long defaultValue) {
+            return values.containsKey(name) ? Long.parseLong(values.get(name).replace("_", "")) : defaultValue;
+        }
+
+        double decimal(String name, double defaultValue) {
+            return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+        }
+
+        boolean flag(String name) {
+            return Boolean.parseBoolean(values.getOrDefault(name, "false"));
+        }
+
+        Duration duration(String name, String defaultValue) {
+            return DurationStyle.detectAndParse(string(name, defaultValue));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.carlos.expensetracker.loadtest;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+//what the synthetic population looks like: credentials, category mix, amounts and descriptions
+//the driver searches with the same words the seeder writes, so searches find something
+final class SyntheticData {
+
+    static final String PASSWORD = "LoadTest123!";
+    static final String EMAIL_PATTERN = "loadtest-%@example.com";
+
+    private static final ExpenseCategory[] CATEGORIES = ExpenseCategory.values();
+
+    //relative frequency per category (ExpenseCategory order)
+    private static final int[] CATEGORY_WEIGHTS = {30, 8, 3, 10, 6, 5, 15, 10, 13};
+
+    //median amount per category; spread is log-normal
+    private static final double[] MEDIAN_AMOUNTS = {45, 25, 120, 70, 50, 35, 20, 18, 30};
+
+    private static final List<List<String>> DESCRIPTIONS = List.of(
+            List.of("Weekly groceries", "Supermarket", "Bakery", "Farmers market", "Corner shop", "Organic store"),
+            List.of("Gym membership", "Cinema tickets", "Concert", "Museum", "Bowling", "Books"),
+            List.of("Headphones", "Phone case", "USB cable", "Laptop", "Keyboard", "Monitor"),
+            List.of("Electricity bill", "Water bill", "Internet", "Mobile phone plan", "Gas bill"),
+            List.of("Shoes", "Jacket", "T-shirts", "Jeans", "Winter coat"),
+            List.of("Pharmacy", "Dentist", "Physiotherapy", "Vitamins", "Eye exam"),
+            List.of("Fuel", "Train ticket", "Bus pass", "Taxi", "Parking", "Car wash"),
+            List.of("Netflix subscription", "Spotify", "Video game", "Restaurant dinner", "Takeaway pizza", "Bar with friends"),
+            List.of("Gift", "Haircut", "Post office", "Donation", "Stationery")
+    );
+
+    private static final int[] CUMULATIVE_WEIGHTS = cumulative(CATEGORY_WEIGHTS);
+
+    private static final List<String> SEARCH_TERMS = DESCRIPTIONS.stream()
+            .flatMap(List::stream)
+            .flatMap(description -> Arrays.stream(description.toLowerCase().split(" ")))
+            .filter(word -> word.length() > 3)
+            .distinct()
+            .toList();
+
+    private SyntheticData() {
+    }
+
+    static String email(int user) {
+        return "loadtest-" + user + "@example.com";
+    }
+
+    static String username(int user) {
+        return "loadtest-" + user;
+    }
+
+    static int category(RandomGenerator random) {
+        int point = random.nextInt(CUMULATIVE_WEIGHTS[CUMULATIVE_WEIGHTS.length - 1]);
+        int index = Arrays.binarySearch(CUMULATIVE_WEIGHTS, point);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    static String categoryName(int category) {
+        return CATEGORIES[category].name();
+    }
+
+    static int categoryCount() {
+        return CATEGORIES.length;
+    }
+
+    static long amountCents(int category, RandomGenerator random) {
+        double amount = MEDIAN_AMOUNTS[category] * Math.exp(0.6 * random.nextGaussian());
+        return Math.clamp(Math.round(amount * 100), 50, 9_999_999);
+    }
+
+    //null for roughly one expense in twenty
+    static String description(int category, RandomGenerator random) {
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+
+        List<String> options = DESCRIPTIONS.get(category);
+        return options.get(random.nextInt(options.size()));
+    }
+
+    static String searchTerm(RandomGenerator random) {
+        return SEARCH_TERMS.get(random.nextInt(SEARCH_TERMS.size()));
+    }
+
+    private static int[] cumulative(int[] weights) {
+        int[] cumulative = new int[weights.length];
+        int total = 0;
+
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+
+        return cumulative;
+    }
+}
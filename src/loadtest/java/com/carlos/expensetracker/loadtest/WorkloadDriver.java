@@ -0,0 +1,315 @@
+package com.carlos.expensetracker.loadtest;
+
+import com.carlos.expensetracker.dto.request.LoginRequest;
+import com.carlos.expensetracker.dto.response.LoginResponse;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//closed-loop workload against a running instance: each session is a virtual thread that picks a user
+//(same skew as the seeder), runs one operation from the mix, waits the think time and repeats
+//requests started during the warmup are sent but not recorded
+final class WorkloadDriver {
+
+    private static final String TOTAL = "TOTAL";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Settings settings;
+    private final ZipfDistribution users;
+    private final Operation[] mix;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    //user -> bearer token, shared by all sessions (logins are an operation of their own)
+    private final Map<Integer, String> tokens = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> stats = new ConcurrentSkipListMap<>();
+
+    private long measureFrom;
+
+    WorkloadDriver(Settings settings) {
+        this.settings = settings;
+        this.users = new ZipfDistribution(settings.users(), settings.skew());
+        this.mix = expand(settings.mix());
+    }
+
+    void run() throws Exception {
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .executor(clientExecutor)
+                     .build()) {
+
+            checkReachable(client);
+
+            long started = System.nanoTime();
+            measureFrom = started + settings.warmup().toNanos();
+            long until = measureFrom + settings.duration().toNanos();
+
+            System.out.printf("%d sessions, %s warmup, %s measured against %s%n",
+                    settings.concurrency(), settings.warmup(), settings.duration(), settings.baseUrl());
+
+            try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < settings.concurrency(); i++) {
+                    SplittableRandom random = new SplittableRandom(settings.seed() + i);
+                    sessions.submit(() -> session(client, random, until));
+                }
+            }
+
+            report((System.nanoTime() - measureFrom) / 1e9);
+        }
+    }
+
+    private void session(HttpClient client, SplittableRandom random, long until) {
+        while (System.nanoTime() < until) {
+            int user = users.sample(random);
+            Operation operation = mix[random.nextInt(mix.length)];
+            String token = tokens.get(user);
+
+            if (token == null || operation == Operation.LOGIN) {
+                token = login(client, user);
+
+                if (token == null) {
+                    //not seeded, or the server is struggling - don't spin
+                    pause(Duration.ofMillis(100));
+                    continue;
+                }
+            }
+
+            switch (operation) {
+                case LOGIN -> {
+                }
+                case LIST -> get(client, user, token, "GET /api/expenses",
+                        "/api/expenses?size=20&page=" + random.nextInt(3), HttpResponse.BodyHandlers.discarding());
+                case SEARCH -> {
+                    //full-text most of the time, otherwise the structured filter
+                    String query = random.nextInt(10) < 6
+                            ? "q=" + SyntheticData.searchTerm(random)
+                            : "category=" + ExpenseCategory.values()[SyntheticData.category(random)] + "&period=LAST_3_MONTHS";
+                    get(client, user, token, "GET /api/expenses/search",
+                            "/api/expenses/search?size=20&" + query, HttpResponse.BodyHandlers.discarding());
+                }
+                case STATISTICS -> {
+                    switch (random.nextInt(3)) {
+                        case 0 -> get(client, user, token, "GET /api/statistics/summary",
+                                "/api/statistics/summary?period=LAST_MONTH", HttpResponse.BodyHandlers.discarding());
+                        case 1 -> get(client, user, token, "GET /api/statistics/by-category",
+                                "/api/statistics/by-category?period=LAST_3_MONTHS", HttpResponse.BodyHandlers.discarding());
+                        default -> get(client, user, token, "GET /api/statistics/trend",
+                                "/api/statistics/trend?granularity=MONTH", HttpResponse.BodyHandlers.discarding());
+                    }
+                }
+                //the whole history, read to the last byte
+                case EXPORT -> get(client, user, token, "GET /api/expenses/export/csv",
+                        "/api/expenses/export/csv", HttpResponse.BodyHandlers.discarding());
+            }
+
+            if (settings.thinkTime().isPositive()) {
+                pause(settings.thinkTime());
+            }
+        }
+    }
+
+    private String login(HttpClient client, int user) {
+        String body = jsonMapper.writeValueAsString(new LoginRequest(SyntheticData.email(user), SyntheticData.PASSWORD));
+
+        HttpRequest request = HttpRequest.newBuilder(settings.baseUrl().resolve("/api/auth/login"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = send(client, "POST /api/auth/login", request, HttpResponse.BodyHandlers.ofString());
+
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+
+        String token = jsonMapper.readValue(response.body(), LoginResponse.class).token();
+        tokens.put(user, token);
+        return token;
+    }
+
+    private <T> void get(HttpClient client, int user, String token, String endpoint, String path,
+                         HttpResponse.BodyHandler<T> handler) {
+        HttpRequest request = HttpRequest.newBuilder(settings.baseUrl().resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+
+        HttpResponse<T> response = send(client, endpoint, request, handler);
+
+        if (response != null && response.statusCode() == 401) {
+            tokens.remove(user, token);
+        }
+    }
+
+    //the latency includes reading the whole body
+    private <T> HttpResponse<T> send(HttpClient client, String endpoint, HttpRequest request,
+                                     HttpResponse.BodyHandler<T> handler) {
+        long started = System.nanoTime();
+        boolean measured = started >= measureFrom;
+
+        try {
+            HttpResponse<T> response = client.send(request, handler);
+
+            if (measured) {
+                long elapsed = System.nanoTime() - started;
+                stats(endpoint).record(elapsed, response.statusCode());
+                stats(TOTAL).record(elapsed, response.statusCode());
+            }
+
+            return response;
+        } catch (IOException ex) {
+            if (measured) {
+                stats(endpoint).recordFailure();
+                stats(TOTAL).recordFailure();
+            }
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private EndpointStats stats(String endpoint) {
+        return stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+    }
+
+    private void checkReachable(HttpClient client) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(settings.baseUrl().resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+
+            if (status != 200) {
+                throw new IllegalStateException(settings.baseUrl() + " is not healthy (HTTP " + status + ")");
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(settings.baseUrl() + " is not reachable", ex);
+        }
+    }
+
+    private void report(double seconds) throws IOException {
+        Map<String, EndpointStats.Summary> summaries = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            if (!endpoint.equals(TOTAL)) {
+                summaries.put(endpoint, endpointStats.summarize(seconds));
+            }
+        });
+        summaries.put(TOTAL, stats(TOTAL).summarize(seconds));
+
+        System.out.printf("%n%-34s %9s %7s %7s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "429", "503", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+        summaries.forEach((endpoint, summary) -> System.out.printf(Locale.ROOT,
+                "%-34s %9d %7d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                endpoint, summary.ok(), summary.rateLimited(), summary.shed(), summary.errors(), summary.throughput(),
+                summary.p50Millis(), summary.p95Millis(), summary.p99Millis(), summary.maxMillis()));
+
+        if (settings.output() != null) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("settings", settings);
+            report.put("measuredSeconds", seconds);
+            report.put("endpoints", summaries);
+
+            Files.writeString(settings.output(), jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            System.out.println("\nReport written to " + settings.output());
+        }
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //weights as repeated entries, so a pick is one random index
+    private static Operation[] expand(Map<Operation, Integer> weights) {
+        List<Operation> expanded = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                expanded.add(operation);
+            }
+        });
+
+        if (expanded.isEmpty()) {
+            throw new IllegalArgumentException("The workload mix is empty");
+        }
+
+        return expanded.toArray(Operation[]::new);
+    }
+
+    enum Operation {
+        LOGIN,
+        LIST,
+        SEARCH,
+        STATISTICS,
+        EXPORT
+    }
+
+    record Settings(
+            URI baseUrl,
+            int users,
+            double skew,
+            int concurrency,
+            Duration warmup,
+            Duration duration,
+            Duration thinkTime,
+            Map<Operation, Integer> mix,
+            long seed,
+            Path output
+    ) {
+
+        static Settings from(LoadTest.Options options) {
+            String output = options.string("output", null);
+
+            return new Settings(
+                    URI.create(options.string("base-url", "http://localhost:8080")),
+                    options.integer("users", 10_000),
+                    options.decimal("skew", 0.5),
+                    options.integer("concurrency", 200),
+                    options.duration("warmup", "10s"),
+                    options.duration("duration", "60s"),
+                    options.duration("think-time", "0ms"),
+                    parseMix(options.string("mix", "list=40,search=25,statistics=25,export=5,login=5")),
+                    options.longValue("seed", 42),
+                    output != null ? Path.of(output) : null
+            );
+        }
+
+        //list=40,search=25,... - relative weights
+        private static Map<Operation, Integer> parseMix(String mix) {
+            Map<Operation, Integer> weights = new LinkedHashMap<>();
+
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.strip().split("=");
+                weights.put(Operation.valueOf(parts[0].toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1]));
+            }
+
+            return weights;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.carlos.expensetracker.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+//rank i (0-based) has weight 1 / (i + 1)^exponent - a few heavy users, a long tail of light ones
+//exponent 0 is uniform; the seeder and the driver share it, so the busiest users also own the most expenses
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    ZipfDistribution(int size, double exponent) {
+        cumulative = new double[size];
+        double total = 0;
+
+        for (int i = 0; i < size; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = total;
+        }
+    }
+
+    double probability(int rank) {
+        double previous = rank == 0 ? 0 : cumulative[rank - 1];
+        return (cumulative[rank] - previous) / cumulative[cumulative.length - 1];
+    }
+
+    int sample(RandomGenerator random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, point);
+        int rank = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
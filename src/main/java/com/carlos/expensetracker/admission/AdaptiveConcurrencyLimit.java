@@ -0,0 +1,85 @@
+package com.carlos.expensetracker.admission;
+
+//AIMD limit on concurrent low-priority requests
+//each finished request is a sample: when the pool had waiters, or the recent latency of its endpoint (short average)
+//drifted above latencyTolerance x the usual one (long average), the limit is cut by backoffRatio; otherwise a limit
+//that was in use grows by one
+//latency is compared per endpoint: an export taking seconds says nothing about a statistics call taking a millisecond
+//low-priority traffic is only a few percent of requests, so a lock here is not contended by the CRUD path
+final class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 0.2; //about the last 10 requests
+    private static final double LONG_ALPHA = 0.01; //about the last 200
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+
+        inFlight++;
+        return true;
+    }
+
+    //saturated: the pool had threads waiting for a connection when the request ended
+    synchronized void release(Latency latency, long latencyNanos, boolean saturated) {
+        //counted with this request, so a limit of 1 that was in use can grow too
+        int used = inFlight--;
+        boolean drifted = latency.sample(latencyNanos, latencyTolerance);
+
+        if (saturated || drifted) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (used * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    //ended without a meaningful latency (failed, or rejected further down the chain)
+    synchronized void cancel() {
+        inFlight--;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    //short and long latency averages of one endpoint, guarded by the limit's lock
+    static final class Latency {
+
+        private double shortAverage;
+        private double longAverage;
+
+        //true when the recent latency drifted above tolerance x the usual one
+        private boolean sample(long latencyNanos, double tolerance) {
+            if (longAverage == 0) {
+                shortAverage = latencyNanos;
+                longAverage = latencyNanos;
+                return false;
+            }
+
+            shortAverage += SHORT_ALPHA * (latencyNanos - shortAverage);
+            longAverage += LONG_ALPHA * (latencyNanos - longAverage);
+
+            return shortAverage > longAverage * tolerance;
+        }
+    }
+}
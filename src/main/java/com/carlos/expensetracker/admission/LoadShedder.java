@@ -0,0 +1,146 @@
+package com.carlos.expensetracker.admission;
+
+import com.carlos.expensetracker.exception.ServiceOverloadedException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//admission of @Sheddable requests, so a burst of exports and statistics can't take every pooled connection
+//and leave the CRUD requests queueing for connection-timeout
+//a request is turned away when the adaptive limit (AdaptiveConcurrencyLimit) of low-priority requests in flight
+//is reached - waiters on the pool shrink that limit - or outright while more than admission.max-pending threads
+//wait for a connection
+//metrics: admission.limit, admission.in-flight, admission.rejected{reason=saturated|limit}
+@Slf4j
+@Component
+public class LoadShedder {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int maxPending;
+    private final long retryAfterSeconds;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Counter rejectedSaturated;
+    private final Counter rejectedLimit;
+    //per handler method
+    private final Map<Method, AdaptiveConcurrencyLimit.Latency> latencies = new ConcurrentHashMap<>();
+
+    //null until the pool has started (or when the datasource is not hikari)
+    private volatile HikariPoolMXBean pool;
+
+    public LoadShedder(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.min-limit:1}") int minLimit,
+            @Value("${admission.max-limit:20}") int maxLimit,
+            @Value("${admission.max-pending:5}") int maxPending,
+            @Value("${admission.retry-after:2s}") Duration retryAfter
+    ) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.retryAfterSeconds = Math.max(retryAfter.toSeconds(), 1);
+        this.limit = new AdaptiveConcurrencyLimit(maxLimit / 2, minLimit, maxLimit, BACKOFF_RATIO, LATENCY_TOLERANCE);
+
+        Gauge.builder("admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Concurrent low-priority requests currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Low-priority requests in flight")
+                .register(meterRegistry);
+
+        this.rejectedSaturated = Counter.builder("admission.rejected")
+                .description("Low-priority requests turned away with 503")
+                .tag("reason", "saturated")
+                .register(meterRegistry);
+        this.rejectedLimit = Counter.builder("admission.rejected")
+                .description("Low-priority requests turned away with 503")
+                .tag("reason", "limit")
+                .register(meterRegistry);
+    }
+
+    //returns the start time to hand back to release/cancel
+    public long acquire() {
+        if (!enabled) {
+            return System.nanoTime();
+        }
+
+        if (pendingConnections() > maxPending) {
+            rejectedSaturated.increment();
+            throw overloaded("connection pool saturated");
+        }
+
+        if (!limit.tryAcquire()) {
+            rejectedLimit.increment();
+            throw overloaded("limit of " + limit.getLimit() + " reached");
+        }
+
+        return System.nanoTime();
+    }
+
+    public void release(Method endpoint, long startedNanos) {
+        if (enabled) {
+            AdaptiveConcurrencyLimit.Latency latency = latencies.get(endpoint);
+            if (latency == null) {
+                latency = latencies.computeIfAbsent(endpoint, key -> new AdaptiveConcurrencyLimit.Latency());
+            }
+
+            limit.release(latency, System.nanoTime() - startedNanos, pendingConnections() > 0);
+        }
+    }
+
+    public void cancel() {
+        if (enabled) {
+            limit.cancel();
+        }
+    }
+
+    private ServiceOverloadedException overloaded(String reason) {
+        log.debug("Shedding low-priority request: {}", reason);
+
+        return new ServiceOverloadedException(
+                "Service busy, try again in " + retryAfterSeconds + " seconds",
+                retryAfterSeconds
+        );
+    }
+
+    private int pendingConnections() {
+        HikariPoolMXBean hikariPool = pool;
+
+        if (hikariPool == null) {
+            hikariPool = pool = lookUpPool();
+
+            if (hikariPool == null) {
+                return 0;
+            }
+        }
+
+        return hikariPool.getThreadsAwaitingConnection();
+    }
+
+    private HikariPoolMXBean lookUpPool() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean()
+                    : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+}
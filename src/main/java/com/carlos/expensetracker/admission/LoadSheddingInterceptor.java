@@ -0,0 +1,51 @@
+package com.carlos.expensetracker.admission;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//@Sheddable handlers go through LoadShedder; the slot is held until the response is complete,
+//which for a streamed export is the end of its async dispatch
+@Component
+@RequiredArgsConstructor
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+    private static final String STARTED = LoadSheddingInterceptor.class.getName() + ".started";
+
+    private final LoadShedder loadShedder;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod handlerMethod)
+                || !handlerMethod.hasMethodAnnotation(Sheddable.class)) {
+            return true;
+        }
+
+        request.setAttribute(STARTED, loadShedder.acquire());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(STARTED) instanceof Long started)) {
+            return;
+        }
+
+        request.removeAttribute(STARTED);
+
+        //a 429 or a failure says nothing about how loaded the database is
+        if (ex != null
+                || response.getStatus() >= HttpStatus.BAD_REQUEST.value()
+                || !(handler instanceof HandlerMethod handlerMethod)) {
+            loadShedder.cancel();
+        } else {
+            loadShedder.release(handlerMethod.getMethod(), started);
+        }
+    }
+}
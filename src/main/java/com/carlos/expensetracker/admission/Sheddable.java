@@ -0,0 +1,13 @@
+package com.carlos.expensetracker.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//low-priority handler: turned away with 503 while the connection pool is saturated (LoadShedder)
+//everything else - the CRUD endpoints - is always admitted, and gets the connections these leave free
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sheddable {
+}
@@ -0,0 +1,162 @@
+package com.carlos.expensetracker.admission;
+
+import com.carlos.expensetracker.exception.TooManyConcurrentRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+//per-user cap on concurrent requests, so one user's parallel heavy searches can't hold the whole pool
+//(the rate limit counts requests, not how long they hold a connection)
+//a free permit is one CAS on the user's semaphore and nothing is allocated; a request that finds none waits
+//up to max-wait, but only queue-size of them per user - beyond that, or after the wait, it gets a 429
+//metrics: bulkhead.users, bulkhead.rejected
+@Slf4j
+@Component
+public class UserBulkhead {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final Map<String, Permits> permits = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final Counter rejected;
+    //kept, so a new user doesn't cost a capturing lambda on every lookup
+    private final Function<String, Permits> newPermits;
+
+    public UserBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${bulkhead.enabled:true}") boolean enabled,
+            @Value("${bulkhead.max-concurrent:4}") int maxConcurrent,
+            @Value("${bulkhead.queue-size:4}") int queueSize,
+            @Value("${bulkhead.max-wait:250ms}") Duration maxWait
+    ) {
+        this.enabled = enabled;
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.queueSize = Math.max(queueSize, 0);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.newPermits = user -> new Permits(this.maxConcurrent);
+
+        Gauge.builder("bulkhead.users", permits, Map::size)
+                .description("Users with a bulkhead entry")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("bulkhead.rejected")
+                .description("Requests turned away with 429 for too many in flight of the same user")
+                .register(meterRegistry);
+    }
+
+    //the returned permits are handed back to release when the request completes
+    public Permits acquire(String userId) {
+        if (!enabled) {
+            return null;
+        }
+
+        Permits userPermits = permits.get(userId);
+        if (userPermits == null) {
+            userPermits = permits.computeIfAbsent(userId, newPermits);
+        }
+
+        if (userPermits.semaphore.tryAcquire()) {
+            userPermits.markUsed();
+            return userPermits;
+        }
+
+        return acquireQueued(userId, userPermits);
+    }
+
+    public void release(Permits userPermits) {
+        if (userPermits != null) {
+            userPermits.semaphore.release();
+        }
+    }
+
+    //mark and sweep: an entry is dropped when nothing used it since the previous pass and nothing holds it now
+    //a request racing the removal may still take the dropped entry's permit - one request over the cap,
+    //once, for a user that was idle for a whole pass
+    @Scheduled(fixedRate = 600000) //10min
+    public void evictIdleUsers() {
+        permits.forEach((user, userPermits) -> {
+            if (userPermits.used) {
+                userPermits.used = false;
+            } else if (userPermits.isIdle()) {
+                permits.remove(user, userPermits);
+            }
+        });
+    }
+
+    int users() {
+        return permits.size();
+    }
+
+    //threads parked on the user's permits
+    int queueLength(String userId) {
+        Permits userPermits = permits.get(userId);
+        return userPermits != null ? userPermits.semaphore.getQueueLength() : 0;
+    }
+
+    private Permits acquireQueued(String userId, Permits userPermits) {
+        if (userPermits.waiting.incrementAndGet() > queueSize) {
+            userPermits.waiting.decrementAndGet();
+            throw rejected(userId);
+        }
+
+        try {
+            if (userPermits.semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                userPermits.markUsed();
+                return userPermits;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            userPermits.waiting.decrementAndGet();
+        }
+
+        throw rejected(userId);
+    }
+
+    private TooManyConcurrentRequestsException rejected(String userId) {
+        rejected.increment();
+        log.warn("Too many concurrent requests for user: {}", userId);
+
+        return new TooManyConcurrentRequestsException(
+                "More than " + maxConcurrent + " requests in flight, try again in " + RETRY_AFTER_SECONDS + " second",
+                RETRY_AFTER_SECONDS
+        );
+    }
+
+    public static final class Permits {
+        private final int maxConcurrent;
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+        //read and reset by the cleanup pass; written only when it changes, so busy users don't keep dirtying it
+        private volatile boolean used = true;
+
+        private Permits(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            this.semaphore = new Semaphore(maxConcurrent);
+        }
+
+        private void markUsed() {
+            if (!used) {
+                used = true;
+            }
+        }
+
+        private boolean isIdle() {
+            return semaphore.availablePermits() == maxConcurrent && waiting.get() == 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.carlos.expensetracker.admission;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//every authenticated handler holds one of the user's permits (UserBulkhead) until the response is complete,
+//which for a streamed export is the end of its async dispatch
+@Component
+@RequiredArgsConstructor
+public class UserBulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String PERMITS = UserBulkheadInterceptor.class.getName() + ".permits";
+
+    private final UserBulkhead userBulkhead;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || "anonymousUser".equals(authentication.getPrincipal())) {
+            return true;
+        }
+
+        UserBulkhead.Permits permits = userBulkhead.acquire(authentication.getName());
+        if (permits != null) {
+            request.setAttribute(PERMITS, permits);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMITS) instanceof UserBulkhead.Permits permits) {
+            request.removeAttribute(PERMITS);
+            userBulkhead.release(permits);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.carlos.expensetracker.config;
+
+import com.carlos.expensetracker.security.CustomUserDetails;
+import com.carlos.expensetracker.service.DataVersionService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+//strong ETags for polled reads, answered with 304 before the controller (and any query) runs
+//a response is fully determined by the user's data version, the request and - for the defaulted
+//date ranges - today's date, so the tag is computed from those instead of from the body
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+    private final DataVersionService dataVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails userDetails)) {
+            return true;
+        }
+
+        //read before the handler: a write committing meanwhile makes the body newer than the tag, never older
+        UUID userId = userDetails.getUserId();
+        String etag = etag(userId, dataVersionService.getDataVersion(userId), request);
+
+        //per user, and always revalidated; also keeps spring security's no-store default off these responses
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        //sets the ETag header, and the 304 status when If-None-Match matches
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    private String etag(UUID userId, long dataVersion, HttpServletRequest request) {
+        String representation = userId + "|" + request.getRequestURI() + "?" + request.getQueryString() + "|" + LocalDate.now();
+
+        return "\"" + dataVersion + "-"
+                + DigestUtils.md5DigestAsHex(representation.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
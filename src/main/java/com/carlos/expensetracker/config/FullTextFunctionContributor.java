@@ -0,0 +1,37 @@
+package com.carlos.expensetracker.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+//postgres full-text search for JPQL; the first argument is the tsvector column, the second the user's query
+//registered through META-INF/services, and only for postgres - H2 has no tsvector
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    //must match the configuration of the generated description_tsv column (V14)
+    private static final String TS_QUERY = "websearch_to_tsquery('simple', ?2)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        //operator form, so the planner can use the GIN index
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_match",
+                "(?1 @@ " + TS_QUERY + ")",
+                types.resolve(StandardBasicTypes.BOOLEAN)
+        );
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_rank",
+                "ts_rank(?1, " + TS_QUERY + ")",
+                types.resolve(StandardBasicTypes.FLOAT)
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.carlos.expensetracker.config;
 
 import com.carlos.expensetracker.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -60,6 +61,9 @@ public class SecurityConfig {
                                 "/api/auth/login"
                         ).permitAll()
 
+                        //streamed responses (csv export) finish on an async dispatch, already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         //actuator - take off in prod
                         .requestMatchers("/actuator/**").permitAll()
 
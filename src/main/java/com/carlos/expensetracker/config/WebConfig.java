@@ -1,5 +1,7 @@
 package com.carlos.expensetracker.config;
 
+import com.carlos.expensetracker.admission.LoadSheddingInterceptor;
+import com.carlos.expensetracker.admission.UserBulkheadInterceptor;
 import com.carlos.expensetracker.security.RateLimitInterceptor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -11,10 +13,22 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final LoadSheddingInterceptor loadSheddingInterceptor;
+    private final UserBulkheadInterceptor userBulkheadInterceptor;
     private final RateLimitInterceptor rateLimitInterceptor;
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
 
     @Override
     public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        //first: a request may wait here for its user's permit, and must not hold a shared admission slot meanwhile
+        //neither this nor load shedding charges the user's rate limit for a request it turns away
+        registry.addInterceptor(userBulkheadInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/auth/signup", "/api/auth/login");
+
+        registry.addInterceptor(loadSheddingInterceptor)
+                .addPathPatterns("/api/**");
+
         registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns(
@@ -24,5 +38,14 @@ public class WebConfig implements WebMvcConfigurer {
                         "/swagger-ui/**",
                         "/v3/api-docs/**"
                 );
+
+        //after the rate limit: a 304 is still a request
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns(
+                        "/api/expenses",
+                        "/api/expenses/search",
+                        "/api/expenses/scroll",
+                        "/api/statistics/**"
+                );
     }
 }
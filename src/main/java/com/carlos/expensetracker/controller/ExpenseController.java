@@ -1,12 +1,24 @@
 package com.carlos.expensetracker.controller;
 
+import com.carlos.expensetracker.admission.Sheddable;
+import com.carlos.expensetracker.dto.request.BulkDeleteRequest;
+import com.carlos.expensetracker.dto.request.BulkUpdateRequest;
 import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.request.UpdateExpenseRequest;
+import com.carlos.expensetracker.dto.response.BulkOperationResponse;
+import com.carlos.expensetracker.dto.response.CsvImportResponse;
+import com.carlos.expensetracker.dto.response.CursorPageResponse;
+import com.carlos.expensetracker.dto.response.DescriptionSuggestionResponse;
 import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.dto.response.IngestAcceptedResponse;
 import com.carlos.expensetracker.security.CustomUserDetails;
+import com.carlos.expensetracker.security.RateLimitCost;
+import com.carlos.expensetracker.service.DescriptionSuggestionService;
 import com.carlos.expensetracker.service.ExpenseService;
 import com.carlos.expensetracker.service.ExportService;
+import com.carlos.expensetracker.service.ImportService;
+import com.carlos.expensetracker.service.IngestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,8 +29,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springdoc.core.annotations.ParameterObject;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpHeaders;
@@ -27,7 +39,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -37,6 +53,9 @@ import java.util.UUID;
 public class ExpenseController {
     private final ExpenseService expenseService;
     private final ExportService exportService;
+    private final ImportService importService;
+    private final IngestService ingestService;
+    private final DescriptionSuggestionService descriptionSuggestionService;
 
     @Operation(summary = "Create expense")
     @PostMapping
@@ -53,26 +72,52 @@ public class ExpenseController {
 
     }
 
+    @Operation(
+            summary = "Queue expense for ingestion",
+            description = "Durably journals the expense and returns 202 right away; " +
+                    "it is written to the expense list shortly after by a background batch"
+    )
+    @ApiResponses(
+            @ApiResponse(responseCode = "202", description = "Expense accepted, id assigned")
+    )
+    @PostMapping("/ingest")
+    public ResponseEntity<IngestAcceptedResponse> ingestExpense(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestBody @Valid CreateExpenseRequest request
+    ) {
+        UUID userId = userDetails.getUserId();
+        log.debug("POST /api/expenses/ingest - user: {}", userId);
+
+        IngestAcceptedResponse response = ingestService.accept(userId, request);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
     //todo: don't show error message with token issues
     @Operation(
             summary = "Get all expenses",
-            description = "Returns a paginated list of expenses for a authenticated user"
+            description = "Returns a paginated list of expenses for a authenticated user. " +
+                    "Without includeTotal the response has no total count (no count query)"
     )
     @Parameters({
             @Parameter(name = "page", description = "Page number (0-based)", example = "0"),
             @Parameter(name = "size", description = "Number of expenses per page", example = "10"),
-            @Parameter(name = "sort", description = "Sorting page (e.g. expenseDate,desc)", example = "expenseDate,desc"),
+            @Parameter(name = "sort", description = "Sorting page: expenseDate, amount, category or createdAt (e.g. amount,desc)", example = "expenseDate,desc"),
     })
+    @RateLimitCost(perPageSize = 50)
     @GetMapping
-    public ResponseEntity<Page<ExpenseResponse>> getAllExpenses(
+    public ResponseEntity<Slice<ExpenseResponse>> getAllExpenses(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @PageableDefault(size = 10, sort = "expenseDate", direction = Sort.Direction.DESC)
-            @Parameter(hidden = true) Pageable pageable
+            @Parameter(hidden = true) Pageable pageable,
+
+            @Parameter(description = "Include totalElements/totalPages in the response", example = "false")
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
         UUID userId = userDetails.getUserId();
         log.info("GET /api/expenses - user: {} (page: {})", userId, pageable.getPageNumber());
 
-        Page<ExpenseResponse> expenses = expenseService.getAllExpenses(userId, pageable);
+        Slice<ExpenseResponse> expenses = expenseService.getAllExpenses(userId, pageable, includeTotal);
 
         return ResponseEntity.ok(expenses);
     }
@@ -123,14 +168,49 @@ public class ExpenseController {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Search expenses")
+    @Operation(
+            summary = "Bulk delete expenses",
+            description = "Deletes every expense matching the filter (and the id list, when given) in one statement"
+    )
+    @RateLimitCost(5)
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<BulkOperationResponse> bulkDelete(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody BulkDeleteRequest request
+    ) {
+        UUID userId = userDetails.getUserId();
+        log.info("POST /api/expenses/bulk-delete - user: {}", userId);
+
+        return ResponseEntity.ok(expenseService.bulkDelete(userId, request));
+    }
+
+    @Operation(
+            summary = "Bulk update expenses",
+            description = "Sets a category and/or shifts the date of every expense matching the filter " +
+                    "(and the id list, when given) in one statement"
+    )
+    @RateLimitCost(5)
+    @PostMapping("/bulk-update")
+    public ResponseEntity<BulkOperationResponse> bulkUpdate(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody BulkUpdateRequest request
+    ) {
+        UUID userId = userDetails.getUserId();
+        log.info("POST /api/expenses/bulk-update - user: {}", userId);
+
+        return ResponseEntity.ok(expenseService.bulkUpdate(userId, request));
+    }
+
+    @Operation(summary = "Search expenses", description = "Combines the filters; with q, the most relevant descriptions come first and the sort breaks ties")
     @Parameters({
             @Parameter(name = "page", description = "Page number (0-based)", example = "0"),
             @Parameter(name = "size", description = "Number of expenses per page", example = "10"),
-            @Parameter(name = "sort", description = "Sorting page (e.g. expenseDate,desc)", example = "expenseDate,desc"),
+            @Parameter(name = "sort", description = "Sorting page: expenseDate, amount, category or createdAt (e.g. amount,desc)", example = "expenseDate,desc"),
     })
+    @Sheddable
+    @RateLimitCost(value = 2, perPageSize = 50)
     @GetMapping("/search")
-    public ResponseEntity<Page<ExpenseResponse>> searchExpenses(
+    public ResponseEntity<Slice<ExpenseResponse>> searchExpenses(
             @AuthenticationPrincipal CustomUserDetails userDetails,
 
             @ParameterObject
@@ -139,24 +219,79 @@ public class ExpenseController {
             ExpenseFilterRequest filter,
 
             @PageableDefault(size = 10, sort = "expenseDate", direction = Sort.Direction.DESC)
-            @Parameter(hidden = true) Pageable pageable
+            @Parameter(hidden = true) Pageable pageable,
+
+            @Parameter(description = "Include totalElements/totalPages in the response", example = "false")
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
         UUID userId = userDetails.getUserId();
         log.info("GET /api/expenses/search - user: {}, filter: {}", userId, filter);
 
-        Page<ExpenseResponse> expenses = expenseService.getExpensesWithFilter(userId, filter, pageable);
+        Slice<ExpenseResponse> expenses = expenseService.getExpensesWithFilter(userId, filter, pageable, includeTotal);
 
         return ResponseEntity.ok(expenses);
     }
 
+    @Operation(
+            summary = "Scroll expenses by cursor",
+            description = "Keyset pagination (newest first) for listing and search. Pass the returned nextCursor to get the next page"
+    )
+    @RateLimitCost(perPageSize = 50)
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<ExpenseResponse>> scrollExpenses(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+
+            @ParameterObject
+            @Parameter(required = false, description = "Optional filter")
+            @Valid
+            ExpenseFilterRequest filter,
+
+            @Parameter(description = "Opaque cursor from the previous page (empty for the first page)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Number of expenses per page (max 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        UUID userId = userDetails.getUserId();
+        log.info("GET /api/expenses/scroll - user: {}, filter: {}", userId, filter);
+
+        CursorPageResponse<ExpenseResponse> expenses = expenseService.getExpensesByCursor(userId, filter, cursor, size);
+
+        return ResponseEntity.ok(expenses);
+    }
+
+    @Operation(
+            summary = "Suggest descriptions",
+            description = "The user's most used descriptions starting with the prefix (case-insensitive); " +
+                    "close matches when none does, so small typos still find the description"
+    )
+    @GetMapping("/descriptions/suggest")
+    public ResponseEntity<List<DescriptionSuggestionResponse>> suggestDescriptions(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+
+            @Parameter(description = "Text typed so far", example = "netf")
+            @RequestParam String prefix,
+
+            @Parameter(description = "Number of suggestions (max 20)", example = "10")
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        UUID userId = userDetails.getUserId();
+        //debug: requested on every keystroke
+        log.debug("GET /api/expenses/descriptions/suggest - user: {}, prefix: {}", userId, prefix);
+
+        return ResponseEntity.ok(descriptionSuggestionService.suggest(userId, prefix, limit));
+    }
+
     @Operation(summary = "Export as a csv file the expenses by user")
     @ApiResponse(
             responseCode = "200",
             description = "CSV file generated",
             content = @Content(mediaType = "text/csv")
     )
+    @Sheddable
+    @RateLimitCost(value = 10, perDays = 180)
     @GetMapping(value = "/export/csv", produces = "text/csv")
-    public ResponseEntity<byte[]> exportToCsv(
+    public ResponseEntity<StreamingResponseBody> exportToCsv(
             @AuthenticationPrincipal CustomUserDetails userDetails,
 
             @ParameterObject
@@ -167,7 +302,8 @@ public class ExpenseController {
         UUID userId = userDetails.getUserId();
         log.info("GET /api/expenses/export/csv - user: {}", userId);
 
-        byte[] csv = exportService.exportToCsv(userId, filter);
+        //rows are written while the cursor is read, so the first bytes leave before the query ends
+        StreamingResponseBody csv = output -> exportService.exportToCsv(userId, filter, output);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("text/csv"));
@@ -178,5 +314,23 @@ public class ExpenseController {
                 .body(csv);
     }
 
+    @Operation(
+            summary = "Import expenses from CSV",
+            description = "Body is a CSV in the export layout (ID;Date;Category;Amount;Description). " +
+                    "Valid rows are imported, invalid ones are reported by line; rows whose ID already exists are skipped"
+    )
+    @RateLimitCost(10)
+    @PostMapping(value = "/import/csv", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<CsvImportResponse> importFromCsv(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            InputStream body
+    ) throws IOException {
+        UUID userId = userDetails.getUserId();
+        log.info("POST /api/expenses/import/csv - user: {}", userId);
 
+        //the raw body is read as it arrives - no multipart buffering
+        CsvImportResponse response = importService.importFromCsv(userId, body);
+
+        return ResponseEntity.ok(response);
+    }
 }
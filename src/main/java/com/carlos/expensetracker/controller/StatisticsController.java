@@ -1,9 +1,13 @@
 package com.carlos.expensetracker.controller;
 
+import com.carlos.expensetracker.admission.Sheddable;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.response.CategorySummaryResponse;
 import com.carlos.expensetracker.dto.response.ExpenseSummaryResponse;
+import com.carlos.expensetracker.dto.response.TrendBucketResponse;
+import com.carlos.expensetracker.entity.enums.TrendGranularity;
 import com.carlos.expensetracker.security.CustomUserDetails;
+import com.carlos.expensetracker.security.RateLimitCost;
 import com.carlos.expensetracker.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
@@ -13,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -27,6 +32,9 @@ public class StatisticsController {
     private final StatisticsService statisticsService;
 
     @Operation(summary = "Summary for expenses")
+    @Sheddable
+    //without dates the service reads LAST_MONTH
+    @RateLimitCost(perDays = 180, openRangeDays = 30)
     @GetMapping("/summary")
     public ResponseEntity<ExpenseSummaryResponse> getSummary(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -41,6 +49,9 @@ public class StatisticsController {
     }
 
     @Operation(summary = "Summary for expenses by category")
+    @Sheddable
+    //without dates the service reads LAST_MONTH
+    @RateLimitCost(perDays = 180, openRangeDays = 30)
     @GetMapping("/by-category")
     public ResponseEntity<List<CategorySummaryResponse>> getByCategory(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -55,4 +66,25 @@ public class StatisticsController {
         return ResponseEntity.ok(categories);
 
     }
+
+    @Operation(
+            summary = "Expense trend",
+            description = "Totals per day, week or month with empty buckets filled in (default: last 12 buckets)"
+    )
+    @Sheddable
+    //without dates: the last 12 buckets, a year at the default granularity
+    @RateLimitCost(perDays = 180)
+    @GetMapping("/trend")
+    public ResponseEntity<List<TrendBucketResponse>> getTrend(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "MONTH") TrendGranularity granularity,
+            @Valid ExpenseFilterRequest filter
+    ) {
+        UUID userId = userDetails.getUserId();
+        log.info("GET /api/statistics/trend - user: {} (granularity: {})", userId, granularity);
+
+        List<TrendBucketResponse> trend = statisticsService.getTrend(userId, granularity, filter);
+
+        return ResponseEntity.ok(trend);
+    }
 }
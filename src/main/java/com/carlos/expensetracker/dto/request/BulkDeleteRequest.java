@@ -0,0 +1,19 @@
+package com.carlos.expensetracker.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BulkDeleteRequest(
+        @Valid
+        @Schema(description = "Expenses matching every filter field are selected")
+        ExpenseFilterRequest filter,
+
+        @Size(max = 1000, message = "At most 1000 ids per request")
+        @Schema(description = "Optional ids - when present only these expenses are selected (still narrowed by the filter)")
+        List<UUID> ids
+) {
+}
@@ -0,0 +1,36 @@
+package com.carlos.expensetracker.dto.request;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BulkUpdateRequest(
+        @Valid
+        @Schema(description = "Expenses matching every filter field are selected")
+        ExpenseFilterRequest filter,
+
+        @Size(max = 1000, message = "At most 1000 ids per request")
+        @Schema(description = "Optional ids - when present only these expenses are selected (still narrowed by the filter)")
+        List<UUID> ids,
+
+        @Schema(example = "TRANSPORT", description = "New category for every selected expense")
+        ExpenseCategory category,
+
+        @Min(value = -3650, message = "Date shift must be at most 3650 days")
+        @Max(value = 3650, message = "Date shift must be at most 3650 days")
+        @Schema(example = "-1", description = "Days to move every selected expense; expenses that would land in the future are skipped")
+        Integer shiftDays
+) {
+
+    @AssertTrue(message = "Nothing to update - set a category or a date shift")
+    public boolean isChangeRequested() {
+        return category != null || (shiftDays != null && shiftDays != 0);
+    }
+}
@@ -4,14 +4,24 @@ import com.carlos.expensetracker.entity.enums.ExpenseCategory;
 import com.carlos.expensetracker.entity.enums.FilterPeriod;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Size;
 import org.springframework.format.annotation.DateTimeFormat;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public record ExpenseFilterRequest(
         @Schema(description = "Expense category", example = "GROCERIES")
         ExpenseCategory category,
 
+        @Schema(description = "Any of these categories (combined with category)", example = "[\"GROCERIES\", \"HEALTH\"]")
+        List<ExpenseCategory> categories,
+
         @Schema(description = "Expense period", example = "LAST_MONTH")
         FilterPeriod period,
 
@@ -21,7 +31,24 @@ public record ExpenseFilterRequest(
 
         @Schema(description = "End date (ISO format)", example = "2026-02-28")
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-        LocalDate endDate
+        LocalDate endDate,
+
+        @DecimalMin(value = "0.00", message = "Minimum amount must not be negative")
+        @Schema(description = "Minimum amount (inclusive)", example = "10.00")
+        BigDecimal minAmount,
+
+        @DecimalMin(value = "0.00", message = "Maximum amount must not be negative")
+        @Schema(description = "Maximum amount (inclusive)", example = "250.00")
+        BigDecimal maxAmount,
+
+        @Size(max = 100, message = "Description filter must not exceed 100 characters")
+        @Schema(description = "Text the description contains (case-insensitive)", example = "market")
+        String description,
+
+        @Size(max = 200, message = "Search query must not exceed 200 characters")
+        @Schema(description = "Full-text search over descriptions, results ranked by relevance " +
+                "(words, \"quoted phrases\", or, -excluded)", example = "netflix")
+        String q
 ) {
 
     @AssertTrue(message = "Start date must be before or equal to end date")
@@ -33,6 +60,15 @@ public record ExpenseFilterRequest(
         return true;
     }
 
+    @AssertTrue(message = "Minimum amount must be less than or equal to maximum amount")
+    public boolean isAmountRangeValid() {
+        if (minAmount != null && maxAmount != null) {
+            return minAmount.compareTo(maxAmount) <= 0;
+        }
+
+        return true;
+    }
+
     public LocalDate getEffectiveStartDate() {
         if (period != null && period != FilterPeriod.CUSTOM) {
             return period.getStartDate();
@@ -49,9 +85,37 @@ public record ExpenseFilterRequest(
         return endDate;
     }
 
+    //category and categories together, empty when not filtering by category
+    public Set<ExpenseCategory> getEffectiveCategories() {
+        Set<ExpenseCategory> effective = EnumSet.noneOf(ExpenseCategory.class);
+
+        if (category != null) {
+            effective.add(category);
+        }
+        if (categories != null) {
+            categories.stream().filter(Objects::nonNull).forEach(effective::add);
+        }
+
+        return effective;
+    }
+
+    //filters the daily rollups can't answer - they need the expense rows
+    public boolean hasRowFilters() {
+        return minAmount != null || maxAmount != null || (description != null && !description.isBlank())
+                || hasSearchQuery();
+    }
+
+    public boolean hasSearchQuery() {
+        return q != null && !q.isBlank();
+    }
+
     public boolean hasFilters() {
         //efetivo, mas deixar mais clean
-        return category != null || period != null || startDate != null || endDate != null;
+        return !getEffectiveCategories().isEmpty() || period != null || startDate != null || endDate != null
+                || hasRowFilters();
     }
 
+    public static ExpenseFilterRequest empty() {
+        return new ExpenseFilterRequest(null, null, null, null, null, null, null, null, null);
+    }
 }
@@ -22,6 +22,10 @@ public record UpdateExpenseRequest(
 
         @PastOrPresent(message = "Expense date cannot be in the future")
         @Schema(example = "2026-02-14", description = "Updated expense date")
-        LocalDate expenseDate
+        LocalDate expenseDate,
+
+        @PositiveOrZero(message = "Version must not be negative")
+        @Schema(example = "3", description = "Version the client last read; the update is rejected if the expense changed since")
+        Long version
 ) {
 }
@@ -0,0 +1,6 @@
+package com.carlos.expensetracker.dto.response;
+
+public record BulkOperationResponse(
+        int affected
+) {
+}
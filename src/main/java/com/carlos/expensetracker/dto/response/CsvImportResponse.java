@@ -0,0 +1,11 @@
+package com.carlos.expensetracker.dto.response;
+
+import java.util.List;
+
+public record CsvImportResponse(
+        long imported,
+        long skipped,
+        long rejected,
+        List<CsvRowError> errors
+) {
+}
@@ -0,0 +1,7 @@
+package com.carlos.expensetracker.dto.response;
+
+public record CsvRowError(
+        long line,
+        String message
+) {
+}
@@ -0,0 +1,7 @@
+package com.carlos.expensetracker.dto.response;
+
+public record DescriptionSuggestionResponse(
+        String description,
+        long uses
+) {
+}
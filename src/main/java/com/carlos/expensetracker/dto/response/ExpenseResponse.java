@@ -15,6 +15,7 @@ public record ExpenseResponse(
         String description,
         LocalDate expenseDate,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long version
 ) {
 }
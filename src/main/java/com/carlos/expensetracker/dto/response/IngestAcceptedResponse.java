@@ -0,0 +1,8 @@
+package com.carlos.expensetracker.dto.response;
+
+import java.util.UUID;
+
+public record IngestAcceptedResponse(
+        UUID id
+) {
+}
@@ -1,10 +1,11 @@
 package com.carlos.expensetracker.dto.response;
 
 import java.math.BigDecimal;
-import java.time.YearMonth;
+import java.time.LocalDate;
 
-public record MonthlyTrendResponse(
-        YearMonth month,
+public record TrendBucketResponse(
+        LocalDate periodStart,
+        LocalDate periodEnd,
         BigDecimal totalAmount,
         Long count
 ) {
@@ -14,7 +14,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "expenses", indexes = {
-        @Index(name = "idx_expenses_user_date", columnList = "user_id, expense_date"),
+        @Index(name = "idx_expenses_user_date_id", columnList = "user_id, expense_date DESC, id DESC"),
         @Index(name = "idx_expenses_user_category", columnList = "user_id, category")
 })
 @Getter
@@ -54,6 +54,10 @@ public class Expense {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     //equals, hash and toString (override)
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,41 @@
+package com.carlos.expensetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+//read model for statistics - written only through ExpenseDailyRollupRepository native statements
+@Entity
+@Table(name = "expense_daily_rollups")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExpenseDailyRollup {
+
+    @EmbeddedId
+    private ExpenseDailyRollupId id;
+
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "expense_count", nullable = false)
+    private Long expenseCount;
+
+    @Column(name = "min_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal minAmount;
+
+    @Column(name = "max_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal maxAmount;
+
+    @Override
+    public String toString() {
+        return "ExpenseDailyRollup{" +
+                "id=" + id +
+                ", totalAmount=" + totalAmount +
+                ", expenseCount=" + expenseCount +
+                '}';
+    }
+}
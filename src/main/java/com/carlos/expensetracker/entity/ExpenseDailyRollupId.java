@@ -0,0 +1,25 @@
+package com.carlos.expensetracker.entity;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Embeddable
+public record ExpenseDailyRollupId(
+        @Column(name = "user_id", nullable = false)
+        UUID userId,
+
+        @Column(name = "expense_date", nullable = false)
+        LocalDate expenseDate,
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "category", nullable = false, length = 50)
+        ExpenseCategory category
+) implements Serializable {
+}
@@ -3,6 +3,7 @@ package com.carlos.expensetracker.entity;
 import com.carlos.expensetracker.entity.enums.UserRole;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -34,6 +35,16 @@ public class User {
     @Column(nullable = false, length = 50)
     private UserRole role; //enum
 
+    //maintained with relative updates by the expense write paths, never by entity saves
+    @ColumnDefault("0")
+    @Column(name = "expense_count", nullable = false, insertable = false, updatable = false)
+    private long expenseCount;
+
+    //same as the counter: only relative updates, bumped by every expense write
+    @ColumnDefault("0")
+    @Column(name = "data_version", nullable = false, insertable = false, updatable = false)
+    private long dataVersion;
+
     @CreationTimestamp
     @Column(nullable = false)
     private LocalDateTime createdAt;
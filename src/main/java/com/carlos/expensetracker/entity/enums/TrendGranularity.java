@@ -0,0 +1,37 @@
+package com.carlos.expensetracker.entity.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+@RequiredArgsConstructor
+public enum TrendGranularity {
+
+    //unit is the postgres date_trunc field (weeks start on monday, same as ISO)
+    DAY("day", ChronoUnit.DAYS),
+    WEEK("week", ChronoUnit.WEEKS),
+    MONTH("month", ChronoUnit.MONTHS);
+
+    private final String unit;
+    private final ChronoUnit chronoUnit;
+
+    public LocalDate truncate(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate periodStart) {
+        return periodStart.plus(1, chronoUnit);
+    }
+
+    public LocalDate periodEnd(LocalDate periodStart) {
+        return next(periodStart).minusDays(1);
+    }
+}
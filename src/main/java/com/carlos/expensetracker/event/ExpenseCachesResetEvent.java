@@ -0,0 +1,5 @@
+package com.carlos.expensetracker.event;
+
+//invalidations may have been missed (the bus to the other replicas was down) - listeners drop everything
+public record ExpenseCachesResetEvent() {
+}
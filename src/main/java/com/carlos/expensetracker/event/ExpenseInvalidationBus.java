@@ -0,0 +1,141 @@
+package com.carlos.expensetracker.event;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+//carries ExpensesChangedEvent between replicas over postgres LISTEN/NOTIFY
+//the NOTIFY is sent inside the writing transaction, so postgres delivers it when - and only if - it commits;
+//every node LISTENs on its own connection and replays what other nodes wrote as a local event
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "expense.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ExpenseInvalidationBus {
+
+    private static final String CHANNEL = "expenses_changed";
+    private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+    private static final long MIN_BACKOFF_MILLIS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSourceProperties dataSourceProperties;
+
+    //this node already invalidated for its own writes
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${expense.invalidation.poll-interval-ms:5000}")
+    private int pollIntervalMillis;
+
+    @Value("${expense.invalidation.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+
+    private volatile boolean running = true;
+    private Thread listener;
+
+    //before commit, on the writer's connection - remote replays run outside a transaction and never get here
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        jdbcTemplate.query(NOTIFY, rs -> null, CHANNEL, nodeId + " " + event.userId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listener = Thread.ofPlatform().name("expense-invalidation-listener").daemon().start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        long backoff = 0;
+
+        while (running) {
+            //outside the pool: the connection is held for the life of the node
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+
+                //notifications sent while nobody listened are gone, and anything cached meanwhile may be stale
+                eventPublisher.publishEvent(new ExpenseCachesResetEvent());
+                log.info("Listening for expense invalidations on channel {}", CHANNEL);
+                backoff = 0;
+
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(pollIntervalMillis);
+
+                    if (received == null || received.length == 0) {
+                        //an idle socket doesn't notice a dead server - a round trip does
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+
+                    for (PGNotification notification : received) {
+                        replay(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+
+                backoff = Math.min(Math.max(backoff * 2, MIN_BACKOFF_MILLIS), maxBackoffMillis);
+                log.warn("Expense invalidation listener lost its connection, reconnecting in {} ms", backoff, ex);
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    //payload: "<node id> <user id>"
+    private void replay(String payload) {
+        int separator = payload.indexOf(' ');
+
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+
+        try {
+            eventPublisher.publishEvent(new ExpensesChangedEvent(UUID.fromString(payload.substring(separator + 1))));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring malformed expense invalidation: {}", payload);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.carlos.expensetracker.event;
+
+import java.util.List;
+import java.util.UUID;
+
+//published by every expense mutation - listeners drop whatever they derived for the user
+//writes that know how the descriptions moved say so, so the suggestions can be patched instead of rebuilt
+//publishedAt is System.nanoTime() inside the writing transaction, so it is always before the commit
+public record ExpensesChangedEvent(UUID userId, List<DescriptionChange> descriptionChanges, long publishedAt) {
+
+    //unknown change (bulk delete, remote replica)
+    public ExpensesChangedEvent(UUID userId) {
+        this(userId, null, System.nanoTime());
+    }
+
+    //single-expense write
+    public ExpensesChangedEvent(UUID userId, DescriptionChange descriptionChange) {
+        this(userId, List.of(descriptionChange), System.nanoTime());
+    }
+
+    //empty: the descriptions didn't move (bulk update, rollup repair); null: unknown
+    public ExpensesChangedEvent(UUID userId, List<DescriptionChange> descriptionChanges) {
+        this(userId, descriptionChanges, System.nanoTime());
+    }
+
+    //either side null: no description removed or added
+    public record DescriptionChange(String removed, String added) {}
+}
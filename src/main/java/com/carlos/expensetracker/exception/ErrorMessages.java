@@ -27,11 +27,13 @@ public final class ErrorMessages {
 
     //429 - too many requests
     public static final String RATE_LIMIT_EXCEEDED = "Rate limit exceeded: Too many requests";
+    public static final String TOO_MANY_CONCURRENT_REQUESTS = "Too many concurrent requests: Wait for the running ones";
 
     //500 - server error
     public static final String INTERNAL_SERVER_ERROR = "Internal server error";
 
     //503 - service unavailable
     public static final String DATABASE_UNAVAILABLE = "Database unavailable: Connection failed";
+    public static final String SERVICE_OVERLOADED = "Service busy: Please retry later";
 
 }
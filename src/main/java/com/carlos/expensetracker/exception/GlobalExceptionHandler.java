@@ -244,7 +244,26 @@ public class GlobalExceptionHandler {
         log.warn("Rate limit exceeded: {}", ex.getMessage());
 
         ErrorResponse error = buildErrorMessage(
-                ErrorMessages.RATE_LIMIT_EXCEEDED,
+                ErrorMessages.RATE_LIMIT_EXCEEDED + " (request cost: " + ex.getCost() + ")",
+                HttpStatus.TOO_MANY_REQUESTS,
+                request
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+                .header("X-RateLimit-Cost", String.valueOf(ex.getCost()))
+                .body(error);
+    }
+
+    //429 - per-user bulkhead
+    @ExceptionHandler(TooManyConcurrentRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyConcurrentRequests(
+            TooManyConcurrentRequestsException ex, HttpServletRequest request
+    ) {
+        log.debug("Concurrent requests exceeded: {}", ex.getMessage());
+
+        ErrorResponse error = buildErrorMessage(
+                ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS,
                 HttpStatus.TOO_MANY_REQUESTS,
                 request
         );
@@ -271,6 +290,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
     }
 
+    //503 - low-priority request shed while the connection pool is saturated
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(
+            ServiceOverloadedException ex, HttpServletRequest request
+    ) {
+        log.debug("Request shed: {}", ex.getMessage());
+
+        ErrorResponse error = buildErrorMessage(
+                ErrorMessages.SERVICE_OVERLOADED,
+                HttpStatus.SERVICE_UNAVAILABLE,
+                request
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     //500
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(
@@ -2,13 +2,24 @@ package com.carlos.expensetracker.exception;
 
 public class RateLimitingException extends RuntimeException {
     private final long retryAfterSeconds;
+    private final long cost;
 
     public RateLimitingException(String message, long retryAfterSeconds) {
+        this(message, retryAfterSeconds, 1);
+    }
+
+    public RateLimitingException(String message, long retryAfterSeconds, long cost) {
         super(message);
         this.retryAfterSeconds = retryAfterSeconds;
+        this.cost = cost;
     }
 
     public long getRetryAfterSeconds() {
         return retryAfterSeconds;
     }
+
+    //tokens the rejected request asked for
+    public long getCost() {
+        return cost;
+    }
 }
@@ -0,0 +1,14 @@
+package com.carlos.expensetracker.exception;
+
+public class TooManyConcurrentRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyConcurrentRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
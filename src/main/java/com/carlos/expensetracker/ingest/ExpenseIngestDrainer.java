@@ -0,0 +1,93 @@
+package com.carlos.expensetracker.ingest;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent.DescriptionChange;
+import com.carlos.expensetracker.repository.ExpenseIngestRepository;
+import com.carlos.expensetracker.repository.UserRepository;
+import com.carlos.expensetracker.service.ExpenseRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+//moves journaled expenses into the database, one transaction per batch;
+//the checkpoint only moves after the commit, and a replayed batch inserts nothing twice
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseIngestDrainer {
+
+    private final ExpenseJournal journal;
+    private final ExpenseIngestRepository ingestRepository;
+    private final UserRepository userRepository;
+    private final ExpenseRollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${expense.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${expense.ingest.drain-interval-ms:200}")
+    public void drain() {
+        try {
+            JournalBatch batch;
+
+            do {
+                batch = journal.read(batchSize);
+
+                if (!batch.entries().isEmpty()) {
+                    List<JournalEntry> entries = batch.entries();
+                    int inserted = transactionTemplate.execute(status -> insert(entries));
+                    log.debug("Drained {} journal entries ({} inserted)", entries.size(), inserted);
+                }
+
+                if (batch.next().compareTo(journal.getCheckpoint()) > 0) {
+                    journal.commit(batch.next());
+                }
+            } while (batch.entries().size() == batchSize);
+        } catch (RuntimeException ex) {
+            //nothing is lost - the same entries are read again on the next run
+            log.error("Journal drain failed, retrying from checkpoint {}", journal.getCheckpoint(), ex);
+        }
+    }
+
+    private int insert(List<JournalEntry> entries) {
+        Set<UUID> inserted = ingestRepository.insertBatch(entries);
+
+        //only rows that really went in count - a replay after a crash adds nothing
+        Map<UUID, List<Expense>> insertedByUser = new TreeMap<>();
+
+        for (JournalEntry entry : entries) {
+            if (inserted.contains(entry.id())) {
+                insertedByUser.computeIfAbsent(entry.userId(), userId -> new ArrayList<>()).add(Expense.builder()
+                        .amount(entry.amount())
+                        .category(entry.category())
+                        .description(entry.description())
+                        .expenseDate(entry.expenseDate())
+                        .build());
+            }
+        }
+
+        //same lock order as single writes: counter row first, then the rollup lock; users in a fixed order
+        insertedByUser.forEach((userId, expenses) -> {
+            userRepository.adjustExpenseCount(userId, expenses.size());
+            rollupService.recordCreated(userId, expenses);
+            eventPublisher.publishEvent(new ExpensesChangedEvent(userId, expenses.stream()
+                    .map(expense -> new DescriptionChange(null, expense.getDescription()))
+                    .toList()));
+        });
+
+        return insertedByUser.values().stream().mapToInt(List::size).sum();
+    }
+}
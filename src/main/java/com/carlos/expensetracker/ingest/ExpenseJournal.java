@@ -0,0 +1,367 @@
+package com.carlos.expensetracker.ingest;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+//append-only, memory-mapped journal of accepted expenses, split in fixed-size segments
+//record layout: [int payload length][int crc32c][payload]; a zero length marks the end of a segment
+//writers append under a lock and wait for msync (group commit: one force covers every append before it);
+//a single reader drains up to the durable position and advances a checkpoint once its batch is committed
+@Slf4j
+@Component
+public class ExpenseJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final Object appendLock = new Object();
+    private final Object forceLock = new Object();
+
+    //guarded by appendLock
+    private MappedByteBuffer writeBuffer;
+    private long writeSegment;
+    private int writeOffset;
+
+    //everything before it is on disk and visible to the reader
+    private volatile JournalPosition durable;
+    private volatile JournalPosition checkpoint;
+
+    //reader side, only touched by the drainer thread
+    private MappedByteBuffer readBuffer;
+    private long readSegment = -1;
+
+    public ExpenseJournal(
+            @Value("${expense.ingest.journal-dir:${java.io.tmpdir}/expensetracker/ingest-journal}") Path directory,
+            @Value("${expense.ingest.segment-size:64MB}") DataSize segmentSize
+    ) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public JournalPosition getCheckpoint() {
+        return checkpoint;
+    }
+
+    //returns once the entry is on disk
+    public void append(JournalEntry entry) {
+        byte[] payload = encode(entry);
+
+        if (HEADER_SIZE + payload.length + HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Journal entry larger than a segment");
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        JournalPosition written;
+
+        synchronized (appendLock) {
+            //keep room for the zero length that ends the segment
+            if (writeBuffer == null || writeOffset + HEADER_SIZE + payload.length + HEADER_SIZE > segmentSize) {
+                roll();
+            }
+
+            writeBuffer.putInt(writeOffset + 4, (int) crc.getValue());
+            writeBuffer.put(writeOffset + HEADER_SIZE, payload);
+            //length last: a torn record reads as the end of the segment
+            writeBuffer.putInt(writeOffset, payload.length);
+            writeOffset += HEADER_SIZE + payload.length;
+
+            written = new JournalPosition(writeSegment, writeOffset);
+        }
+
+        force(written);
+    }
+
+    //up to max durable entries after the checkpoint
+    public JournalBatch read(int max) {
+        JournalPosition position = checkpoint;
+        JournalPosition limit = durable;
+        List<JournalEntry> entries = new ArrayList<>(Math.min(max, 1024));
+
+        while (entries.size() < max && position.compareTo(limit) < 0) {
+            ByteBuffer buffer = mapForRead(position.segment());
+            int offset = position.offset();
+            int length = buffer.getInt(offset);
+
+            //end of a closed segment - continue with the next one
+            if (length == 0) {
+                position = new JournalPosition(position.segment() + 1, 0);
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            entries.add(decode(payload));
+            position = new JournalPosition(position.segment(), offset + HEADER_SIZE + length);
+        }
+
+        return new JournalBatch(entries, position);
+    }
+
+    //everything before the position is in the database; segments behind it are removed
+    public void commit(JournalPosition position) {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+
+        try {
+            Files.writeString(temp, position.segment() + " " + position.offset(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write journal checkpoint", ex);
+        }
+
+        checkpoint = position;
+
+        for (long segment : listSegments()) {
+            if (segment < position.segment()) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (appendLock) {
+            if (writeBuffer != null) {
+                writeBuffer.force();
+            }
+        }
+    }
+
+    //group commit: whoever takes the lock forces every append made so far
+    private void force(JournalPosition written) {
+        if (durable.compareTo(written) >= 0) {
+            return;
+        }
+
+        synchronized (forceLock) {
+            JournalPosition from = durable;
+
+            if (from.compareTo(written) >= 0) {
+                return;
+            }
+
+            MappedByteBuffer buffer;
+            JournalPosition upTo;
+
+            synchronized (appendLock) {
+                buffer = writeBuffer;
+                upTo = new JournalPosition(writeSegment, writeOffset);
+            }
+
+            //a roll already forced the older segments
+            int start = from.segment() == upTo.segment() ? from.offset() : 0;
+            buffer.force(start, upTo.offset() - start);
+            durable = upTo;
+        }
+    }
+
+    private void roll() {
+        long next = writeBuffer == null ? Math.max(writeSegment, checkpoint.segment()) : writeSegment + 1;
+
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+
+        writeBuffer = map(next, FileChannel.MapMode.READ_WRITE);
+        writeSegment = next;
+        writeOffset = 0;
+    }
+
+    private void recover() throws IOException {
+        checkpoint = readCheckpoint();
+        List<Long> segments = listSegments();
+
+        if (segments.isEmpty()) {
+            checkpoint = new JournalPosition(checkpoint.segment(), 0);
+            writeSegment = checkpoint.segment();
+            durable = checkpoint;
+            return;
+        }
+
+        //the tail of the last segment is wherever the record chain breaks
+        long last = segments.getLast();
+        MappedByteBuffer buffer = map(last, FileChannel.MapMode.READ_WRITE);
+        int offset = 0;
+
+        while (offset <= segmentSize - HEADER_SIZE) {
+            int length = buffer.getInt(offset);
+
+            if (length <= 0 || offset + HEADER_SIZE + length > segmentSize - HEADER_SIZE) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+
+            offset += HEADER_SIZE + length;
+        }
+
+        //drop a torn record so the next append is not read as part of it
+        buffer.putInt(offset, 0);
+        buffer.force();
+
+        writeBuffer = buffer;
+        writeSegment = last;
+        writeOffset = offset;
+        durable = new JournalPosition(last, offset);
+
+        if (checkpoint.compareTo(durable) > 0 || checkpoint.segment() < segments.getFirst()) {
+            checkpoint = new JournalPosition(segments.getFirst(), 0);
+        }
+
+        log.info("Expense journal recovered: {} segment(s), checkpoint {}, end {}", segments.size(), checkpoint, durable);
+    }
+
+    private JournalPosition readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+
+        if (!Files.exists(file)) {
+            return JournalPosition.START;
+        }
+
+        String[] parts = Files.readString(file).strip().split(" ");
+        return new JournalPosition(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private ByteBuffer mapForRead(long segment) {
+        if (segment != readSegment) {
+            readBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    //the mapping outlives the channel
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(mode, 0, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to map journal segment " + segment, ex);
+        }
+    }
+
+    private List<Long> listSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to list journal segments", ex);
+        }
+    }
+
+    private void deleteSegment(long segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException ex) {
+            log.warn("Failed to delete drained journal segment {}", segment, ex);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%016d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private static byte[] encode(JournalEntry entry) {
+        byte[] category = entry.category().name().getBytes(StandardCharsets.UTF_8);
+        byte[] description = entry.description() != null ? entry.description().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] amount = entry.amount().unscaledValue().toByteArray();
+
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 16 + 8 + 8
+                + 4 + amount.length
+                + 4 + category.length
+                + 4 + (description != null ? description.length : 0));
+
+        buffer.putLong(entry.id().getMostSignificantBits()).putLong(entry.id().getLeastSignificantBits());
+        buffer.putLong(entry.userId().getMostSignificantBits()).putLong(entry.userId().getLeastSignificantBits());
+        buffer.putLong(entry.expenseDate().toEpochDay());
+        buffer.putLong(entry.acceptedAtMillis());
+        buffer.putShort((short) entry.amount().scale()).putShort((short) amount.length).put(amount);
+        buffer.putInt(category.length).put(category);
+        buffer.putInt(description != null ? description.length : -1);
+
+        if (description != null) {
+            buffer.put(description);
+        }
+
+        return buffer.array();
+    }
+
+    private static JournalEntry decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+        LocalDate expenseDate = LocalDate.ofEpochDay(buffer.getLong());
+        long acceptedAtMillis = buffer.getLong();
+
+        int scale = buffer.getShort();
+        byte[] unscaled = new byte[buffer.getShort()];
+        buffer.get(unscaled);
+
+        byte[] category = new byte[buffer.getInt()];
+        buffer.get(category);
+
+        int descriptionLength = buffer.getInt();
+        String description = null;
+
+        if (descriptionLength >= 0) {
+            byte[] bytes = new byte[descriptionLength];
+            buffer.get(bytes);
+            description = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return new JournalEntry(
+                id,
+                userId,
+                new BigDecimal(new BigInteger(unscaled), scale),
+                ExpenseCategory.valueOf(new String(category, StandardCharsets.UTF_8)),
+                description,
+                expenseDate,
+                acceptedAtMillis
+        );
+    }
+}
@@ -0,0 +1,7 @@
+package com.carlos.expensetracker.ingest;
+
+import java.util.List;
+
+//entries read from the journal and the position right after the last one
+public record JournalBatch(List<JournalEntry> entries, JournalPosition next) {
+}
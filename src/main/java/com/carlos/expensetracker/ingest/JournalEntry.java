@@ -0,0 +1,19 @@
+package com.carlos.expensetracker.ingest;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+//one accepted expense; the id is assigned at append time so a replay inserts the same row again
+public record JournalEntry(
+        UUID id,
+        UUID userId,
+        BigDecimal amount,
+        ExpenseCategory category,
+        String description,
+        LocalDate expenseDate,
+        long acceptedAtMillis
+) {
+}
@@ -1,7 +1,6 @@
 package com.carlos.expensetracker.mapper;
 
 import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
-import com.carlos.expensetracker.dto.request.UpdateExpenseRequest;
 import com.carlos.expensetracker.dto.response.ExpenseResponse;
 import com.carlos.expensetracker.entity.Expense;
 import com.carlos.expensetracker.entity.User;
@@ -21,22 +20,6 @@ public class ExpenseMapper {
                 .build();
     }
 
-    //update - avoiding nullPointer
-    public void updateEntity(Expense expense, UpdateExpenseRequest request) {
-        if (request.amount() != null) {
-            expense.setAmount(request.amount());
-        }
-        if (request.category() != null) {
-            expense.setCategory(request.category());
-        }
-        if (request.description() != null) {
-            expense.setDescription(request.description());
-        }
-        if (request.expenseDate() != null) {
-            expense.setExpenseDate(request.expenseDate());
-        }
-    }
-
     //entity to response
     public ExpenseResponse toResponse(Expense expense) {
         return new ExpenseResponse(
@@ -47,7 +30,8 @@ public class ExpenseMapper {
                 expense.getDescription(),
                 expense.getExpenseDate(),
                 expense.getCreatedAt(),
-                expense.getUpdatedAt()
+                expense.getUpdatedAt(),
+                expense.getVersion()
         );
     }
 }
@@ -0,0 +1,261 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.response.CategorySummaryResponse;
+import com.carlos.expensetracker.dto.response.ExpenseSummaryResponse;
+import com.carlos.expensetracker.entity.ExpenseDailyRollup;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ExpenseDailyRollupRepository extends JpaRepository<ExpenseDailyRollup, ExpenseDailyRollupId> {
+
+    //serializes rollup maintenance per user until the transaction ends
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    Integer lockUser(@Param("lockKey") long lockKey);
+
+    //incremental path - one expense added to a cell
+    //MERGE rather than ON CONFLICT so postgres and the H2 tests run the same statement; it has no conflict
+    //handling of its own, which is fine here: every rollup write holds the user's lock (lockUser)
+    @Modifying
+    @Query(value = """
+                MERGE INTO expense_daily_rollups r
+                USING (
+                    SELECT CAST(:userId AS UUID) AS user_id, CAST(:expenseDate AS DATE) AS expense_date,
+                           CAST(:category AS VARCHAR(50)) AS category, CAST(:amount AS DECIMAL(10, 2)) AS amount
+                ) v ON r.user_id = v.user_id AND r.expense_date = v.expense_date AND r.category = v.category
+                WHEN MATCHED THEN UPDATE SET
+                    total_amount = r.total_amount + v.amount,
+                    expense_count = r.expense_count + 1,
+                    min_amount = LEAST(r.min_amount, v.amount),
+                    max_amount = GREATEST(r.max_amount, v.amount)
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount)
+                    VALUES (v.user_id, v.expense_date, v.category, v.amount, 1, v.amount, v.amount)
+            """, nativeQuery = true)
+    int addToCell(
+            @Param("userId") UUID userId,
+            @Param("expenseDate") LocalDate expenseDate,
+            @Param("category") String category,
+            @Param("amount") BigDecimal amount
+    );
+
+    //batched path - several expenses of one cell folded together first
+    @Modifying
+    @Query(value = """
+                MERGE INTO expense_daily_rollups r
+                USING (
+                    SELECT CAST(:userId AS UUID) AS user_id, CAST(:expenseDate AS DATE) AS expense_date,
+                           CAST(:category AS VARCHAR(50)) AS category, CAST(:totalAmount AS DECIMAL(15, 2)) AS total_amount,
+                           CAST(:expenseCount AS BIGINT) AS expense_count, CAST(:minAmount AS DECIMAL(10, 2)) AS min_amount,
+                           CAST(:maxAmount AS DECIMAL(10, 2)) AS max_amount
+                ) v ON r.user_id = v.user_id AND r.expense_date = v.expense_date AND r.category = v.category
+                WHEN MATCHED THEN UPDATE SET
+                    total_amount = r.total_amount + v.total_amount,
+                    expense_count = r.expense_count + v.expense_count,
+                    min_amount = LEAST(r.min_amount, v.min_amount),
+                    max_amount = GREATEST(r.max_amount, v.max_amount)
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount)
+                    VALUES (v.user_id, v.expense_date, v.category, v.total_amount, v.expense_count, v.min_amount, v.max_amount)
+            """, nativeQuery = true)
+    int addAggregateToCell(
+            @Param("userId") UUID userId,
+            @Param("expenseDate") LocalDate expenseDate,
+            @Param("category") String category,
+            @Param("totalAmount") BigDecimal totalAmount,
+            @Param("expenseCount") long expenseCount,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount
+    );
+
+    //min/max can't be decremented, so removals recompute the (small) cell from expenses
+    @Modifying
+    @Query(value = """
+                MERGE INTO expense_daily_rollups r
+                USING (
+                    SELECT e.user_id, e.expense_date, e.category, SUM(e.amount) AS total_amount, COUNT(*) AS expense_count,
+                           MIN(e.amount) AS min_amount, MAX(e.amount) AS max_amount
+                    FROM expenses e
+                    WHERE e.user_id = :userId
+                    AND e.expense_date = :expenseDate
+                    AND e.category = :category
+                    GROUP BY e.user_id, e.expense_date, e.category
+                ) a ON r.user_id = a.user_id AND r.expense_date = a.expense_date AND r.category = a.category
+                WHEN MATCHED THEN UPDATE SET
+                    total_amount = a.total_amount,
+                    expense_count = a.expense_count,
+                    min_amount = a.min_amount,
+                    max_amount = a.max_amount
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount)
+                    VALUES (a.user_id, a.expense_date, a.category, a.total_amount, a.expense_count, a.min_amount, a.max_amount)
+            """, nativeQuery = true)
+    int recomputeCell(
+            @Param("userId") UUID userId,
+            @Param("expenseDate") LocalDate expenseDate,
+            @Param("category") String category
+    );
+
+    @Modifying
+    @Query(value = """
+                DELETE FROM expense_daily_rollups r
+                WHERE r.user_id = :userId
+                AND r.expense_date = :expenseDate
+                AND r.category = :category
+                AND NOT EXISTS (
+                    SELECT 1 FROM expenses e
+                    WHERE e.user_id = r.user_id
+                    AND e.expense_date = r.expense_date
+                    AND e.category = r.category
+                )
+            """, nativeQuery = true)
+    int deleteCellIfEmpty(
+            @Param("userId") UUID userId,
+            @Param("expenseDate") LocalDate expenseDate,
+            @Param("category") String category
+    );
+
+    @Modifying
+    @Query(value = "DELETE FROM expense_daily_rollups WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUser(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO expense_daily_rollups
+                    (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount)
+                SELECT e.user_id, e.expense_date, e.category, SUM(e.amount), COUNT(*), MIN(e.amount), MAX(e.amount)
+                FROM expenses e
+                WHERE e.user_id = :userId
+                GROUP BY e.user_id, e.expense_date, e.category
+            """, nativeQuery = true)
+    int insertFromExpenses(@Param("userId") UUID userId);
+
+    //cells where rollups and raw expenses disagree (missing on either side or different values)
+    //two anti-joins instead of a FULL OUTER JOIN, which H2 lacks - still one statement, one snapshot
+    @Query(value = """
+                SELECT COUNT(*)
+                FROM (
+                    SELECT a.expense_date
+                    FROM (
+                        SELECT e.expense_date, e.category, SUM(e.amount) AS total_amount, COUNT(*) AS expense_count,
+                               MIN(e.amount) AS min_amount, MAX(e.amount) AS max_amount
+                        FROM expenses e
+                        WHERE e.user_id = :userId
+                        GROUP BY e.expense_date, e.category
+                    ) a
+                    LEFT JOIN expense_daily_rollups r
+                        ON r.user_id = :userId AND r.expense_date = a.expense_date AND r.category = a.category
+                    WHERE r.expense_date IS NULL
+                    OR a.total_amount <> r.total_amount
+                    OR a.expense_count <> r.expense_count
+                    OR a.min_amount <> r.min_amount
+                    OR a.max_amount <> r.max_amount
+                    UNION ALL
+                    SELECT r.expense_date
+                    FROM expense_daily_rollups r
+                    WHERE r.user_id = :userId
+                    AND NOT EXISTS (
+                        SELECT 1 FROM expenses e
+                        WHERE e.user_id = r.user_id
+                        AND e.expense_date = r.expense_date
+                        AND e.category = r.category
+                    )
+                ) inconsistent
+            """, nativeQuery = true)
+    long countInconsistentCells(@Param("userId") UUID userId);
+
+    //Statistics
+    @Query("""
+                SELECT new com.carlos.expensetracker.dto.response.ExpenseSummaryResponse(
+                    COALESCE(SUM(r.totalAmount), CAST(0 AS bigdecimal)),
+                    COALESCE(SUM(r.expenseCount), 0L),
+                    COALESCE(CAST(SUM(r.totalAmount) AS double) / SUM(r.expenseCount), 0.0),
+                    COALESCE(MIN(r.minAmount), CAST(0 AS bigdecimal)),
+                    COALESCE(MAX(r.maxAmount), CAST(0 AS bigdecimal)),
+                    :startDate,
+                    :endDate
+                )
+                FROM ExpenseDailyRollup r
+                WHERE r.id.userId = :userId
+                AND r.id.expenseDate BETWEEN :startDate AND :endDate
+            """)
+    ExpenseSummaryResponse calculateSummary(
+            @Param("userId") UUID userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+                SELECT new com.carlos.expensetracker.dto.response.CategorySummaryResponse(
+                    r.id.category,
+                    COALESCE(SUM(r.totalAmount), CAST(0 AS bigdecimal)),
+                    SUM(r.expenseCount),
+                    CAST(0 AS bigdecimal)
+                )
+                FROM ExpenseDailyRollup r
+                WHERE r.id.userId = :userId
+                AND r.id.expenseDate BETWEEN :startDate AND :endDate
+                GROUP BY r.id.category
+                ORDER BY SUM(r.totalAmount) DESC
+            """)
+    List<CategorySummaryResponse> calculateByCategory(
+            @Param("userId") UUID userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+                SELECT COALESCE(SUM(r.expenseCount), 0L)
+                FROM ExpenseDailyRollup r
+                WHERE r.id.userId = :userId
+                AND (:anyCategory = true OR r.id.category IN :categories)
+                AND (CAST(:startDate AS LocalDate) IS NULL OR r.id.expenseDate >= :startDate)
+                AND (CAST(:endDate AS LocalDate) IS NULL OR r.id.expenseDate <= :endDate)
+            """)
+    long countExpenses(
+            @Param("userId") UUID userId,
+            @Param("anyCategory") boolean anyCategory,
+            @Param("categories") Collection<ExpenseCategory> categories,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    //one date_trunc group by over the rollups, buckets without expenses are absent
+    @Query(value = """
+                SELECT CAST(date_trunc(:unit, r.expense_date) AS date) AS "periodStart",
+                       SUM(r.total_amount) AS "totalAmount",
+                       CAST(SUM(r.expense_count) AS bigint) AS "count"
+                FROM expense_daily_rollups r
+                WHERE r.user_id = :userId
+                AND r.expense_date BETWEEN :startDate AND :endDate
+                AND (CAST(:category AS varchar) IS NULL OR r.category = :category)
+                GROUP BY 1
+                ORDER BY 1
+            """, nativeQuery = true)
+    List<TrendBucketView> calculateTrend(
+            @Param("userId") UUID userId,
+            @Param("unit") String unit,
+            @Param("category") String category,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    interface TrendBucketView {
+        LocalDate getPeriodStart();
+
+        BigDecimal getTotalAmount();
+
+        Long getCount();
+    }
+}
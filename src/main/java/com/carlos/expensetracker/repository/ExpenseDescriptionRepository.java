@@ -0,0 +1,61 @@
+package com.carlos.expensetracker.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+//description usage counts for the autocomplete
+//MOST_USED groups and sorts every expense of the user - no index answers it, one only narrows it to the user -
+//so it only runs to build the in-memory index; MOST_SIMILAR is the one idx_expenses_description_trgm answers
+@Repository
+@RequiredArgsConstructor
+public class ExpenseDescriptionRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private static final String MOST_USED = """
+            SELECT description, COUNT(*) AS uses
+            FROM expenses
+            WHERE user_id = :userId AND description IS NOT NULL AND description <> ''
+            GROUP BY description
+            ORDER BY uses DESC, description
+            LIMIT :limit
+            """;
+
+    //<% is pg_trgm word similarity: the typed text against the closest word run of the description,
+    //so "netflx" still finds "Netflix subscription"
+    private static final String MOST_SIMILAR = """
+            SELECT description, COUNT(*) AS uses
+            FROM expenses
+            WHERE user_id = :userId AND :text <% lower(description)
+            GROUP BY description
+            ORDER BY MAX(word_similarity(:text, lower(description))) DESC, uses DESC, description
+            LIMIT :limit
+            """;
+
+    public List<DescriptionUsage> findMostUsed(UUID userId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("limit", limit);
+
+        return jdbcTemplate.query(MOST_USED, params, (rs, rowNum) ->
+                new DescriptionUsage(rs.getString("description"), rs.getLong("uses")));
+    }
+
+    public List<DescriptionUsage> findMostSimilar(UUID userId, String text, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("text", text)
+                .addValue("limit", limit);
+
+        return jdbcTemplate.query(MOST_SIMILAR, params, (rs, rowNum) ->
+                new DescriptionUsage(rs.getString("description"), rs.getLong("uses")));
+    }
+
+    public record DescriptionUsage(String description, long uses) {
+    }
+}
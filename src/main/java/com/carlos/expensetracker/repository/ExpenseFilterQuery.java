@@ -0,0 +1,175 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.exception.BadRequestException;
+import com.carlos.expensetracker.util.ExpenseCursor;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+//compiles a filter into a JPQL where clause with named parameters
+//only the filter's shape (which fields are set) reaches the text, never a value, so identical shapes
+//produce identical statements and share the hibernate query plan and the server-side prepared statement
+//predicates follow the indexes: user, then date (user_id, expense_date, id), then category, then the rest
+final class ExpenseFilterQuery {
+
+    //sortable properties - anything else would bypass the indexes or leak entity internals
+    private static final Map<String, String> SORT_PATHS = Map.of(
+            "expenseDate", "e.expenseDate",
+            "amount", "e.amount",
+            "category", "e.category",
+            "createdAt", "e.createdAt"
+    );
+
+    //generated column, deliberately not mapped on Expense (H2 has no tsvector)
+    private static final String SEARCH_VECTOR = "column(e.description_tsv as String)";
+
+    private final StringJoiner where = new StringJoiner(" AND ");
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private boolean ranked;
+
+    private ExpenseFilterQuery() {
+    }
+
+    static ExpenseFilterQuery compile(UUID userId, ExpenseFilterRequest filter, Collection<UUID> ids) {
+        ExpenseFilterQuery query = new ExpenseFilterQuery();
+        ExpenseFilterRequest effective = filter != null ? filter : ExpenseFilterRequest.empty();
+
+        query.add("e.user.id = :userId", "userId", userId);
+
+        if (ids != null && !ids.isEmpty()) {
+            query.add("e.id IN :ids", "ids", ids);
+        }
+
+        LocalDate startDate = effective.getEffectiveStartDate();
+        LocalDate endDate = effective.getEffectiveEndDate();
+
+        if (startDate != null && endDate != null) {
+            query.add("e.expenseDate BETWEEN :startDate AND :endDate", "startDate", startDate);
+            query.parameters.put("endDate", endDate);
+        } else if (startDate != null) {
+            query.add("e.expenseDate >= :startDate", "startDate", startDate);
+        } else if (endDate != null) {
+            query.add("e.expenseDate <= :endDate", "endDate", endDate);
+        }
+
+        Set<?> categories = effective.getEffectiveCategories();
+
+        if (categories.size() == 1) {
+            query.add("e.category = :category", "category", categories.iterator().next());
+        } else if (!categories.isEmpty()) {
+            query.add("e.category IN :categories", "categories", categories);
+        }
+
+        if (effective.minAmount() != null) {
+            query.add("e.amount >= :minAmount", "minAmount", effective.minAmount());
+        }
+        if (effective.maxAmount() != null) {
+            query.add("e.amount <= :maxAmount", "maxAmount", effective.maxAmount());
+        }
+
+        if (effective.description() != null && !effective.description().isBlank()) {
+            query.add("LOWER(e.description) LIKE :description ESCAPE '\\'", "description",
+                    "%" + escapeLike(effective.description().strip().toLowerCase(Locale.ROOT)) + "%");
+        }
+
+        //fts_match is the @@ operator (FullTextFunctionContributor), answered by the (user_id, description_tsv) GIN index
+        if (effective.hasSearchQuery()) {
+            query.add("fts_match(" + SEARCH_VECTOR + ", :q)", "q", effective.q().strip());
+            query.ranked = true;
+        }
+
+        return query;
+    }
+
+    //keyset continuation for the (expense_date DESC, id DESC) order
+    ExpenseFilterQuery after(ExpenseCursor cursor) {
+        if (cursor != null) {
+            add("(e.expenseDate, e.id) < (:cursorDate, :cursorId)", "cursorDate", cursor.expenseDate());
+            parameters.put("cursorId", cursor.id());
+        }
+        return this;
+    }
+
+    Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    //with a search query the best matches come first, the requested sort breaks ties
+    String select(Sort sort) {
+        String rank = ranked ? "fts_rank(" + SEARCH_VECTOR + ", :q) DESC, " : "";
+        return ExpenseRepository.SELECT_RESPONSE + "WHERE " + where + " ORDER BY " + rank + orderBy(sort);
+    }
+
+    //(expense_date DESC, id DESC) regardless of relevance - keyset windows and exports depend on it
+    String selectInKeysetOrder() {
+        return ExpenseRepository.SELECT_RESPONSE + "WHERE " + where + " ORDER BY " + orderBy(Sort.unsorted());
+    }
+
+    String count() {
+        return "SELECT COUNT(e) FROM Expense e WHERE " + where;
+    }
+
+    //one row per matched expense - callers lock them and fold the cells in memory (FOR UPDATE rules out DISTINCT)
+    String cells() {
+        return "SELECT new com.carlos.expensetracker.entity.ExpenseDailyRollupId(e.user.id, e.expenseDate, e.category)"
+                + " FROM Expense e WHERE " + where;
+    }
+
+    String delete() {
+        return "DELETE FROM Expense e WHERE " + where;
+    }
+
+    String update(String assignments) {
+        return "UPDATE Expense e SET " + assignments + " WHERE " + where;
+    }
+
+    //extra predicate that isn't part of the filter (bulk update guards)
+    ExpenseFilterQuery and(String predicate, Map<String, Object> values) {
+        where.add(predicate);
+        parameters.putAll(values);
+        return this;
+    }
+
+    <Q extends Query> Q bind(Q query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    //id breaks ties in the direction of the last order, so pages never overlap
+    //and the default (expenseDate desc) walks idx_expenses_user_date_id without a sort
+    private static String orderBy(Sort sort) {
+        StringJoiner order = new StringJoiner(", ");
+        Sort.Direction last = Sort.Direction.DESC;
+
+        for (Sort.Order item : sort.isSorted() ? sort : Sort.by(Sort.Direction.DESC, "expenseDate")) {
+            String path = SORT_PATHS.get(item.getProperty());
+
+            if (path == null) {
+                throw new BadRequestException("Unsupported sort property: " + item.getProperty());
+            }
+
+            order.add(path + " " + item.getDirection().name());
+            last = item.getDirection();
+        }
+
+        return order.add("e.id " + last.name()).toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private void add(String predicate, String name, Object value) {
+        where.add(predicate);
+        parameters.put(name, value);
+    }
+}
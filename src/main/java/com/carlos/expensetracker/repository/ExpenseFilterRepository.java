@@ -0,0 +1,57 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.util.ExpenseCursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+//every read and bulk write driven by an ExpenseFilterRequest - one compiled statement per filter shape
+//reads are projections (ExpenseRepository.SELECT_RESPONSE), nothing ends up in the persistence context
+public interface ExpenseFilterRepository {
+
+    Slice<ExpenseResponse> findByFilter(UUID userId, ExpenseFilterRequest filter, Pageable pageable);
+
+    long countByFilter(UUID userId, ExpenseFilterRequest filter);
+
+    //keyset pagination - newest first, ties broken by id so the order is total
+    List<ExpenseResponse> findWindowByFilter(UUID userId, ExpenseFilterRequest filter, ExpenseCursor after, int limit);
+
+    //forward-only cursor for exports - caller must consume it inside a transaction and close it
+    Stream<ExpenseResponse> streamByFilter(UUID userId, ExpenseFilterRequest filter);
+
+    //rollup cells of the rows a bulk write is about to change, row-locked until commit
+    //so the delete / update that follows changes exactly these rows and nothing moves underneath
+    Set<ExpenseDailyRollupId> lockCellsForDelete(UUID userId, ExpenseFilterRequest filter, Collection<UUID> ids);
+
+    Set<ExpenseDailyRollupId> lockCellsForUpdate(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Collection<UUID> ids,
+            int shiftDays,
+            LocalDate today
+    );
+
+    int deleteByFilter(UUID userId, ExpenseFilterRequest filter, Collection<UUID> ids);
+
+    //rows the shift would move into the future are left alone
+    int updateByFilter(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Collection<UUID> ids,
+            ExpenseCategory newCategory,
+            int shiftDays,
+            LocalDateTime updatedAt,
+            LocalDate today
+    );
+}
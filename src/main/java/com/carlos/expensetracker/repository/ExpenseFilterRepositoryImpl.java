@@ -0,0 +1,144 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.util.ExpenseCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@RequiredArgsConstructor
+public class ExpenseFilterRepositoryImpl implements ExpenseFilterRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<ExpenseResponse> findByFilter(UUID userId, ExpenseFilterRequest filter, Pageable pageable) {
+        ExpenseFilterQuery query = ExpenseFilterQuery.compile(userId, filter, null);
+        TypedQuery<ExpenseResponse> select = query.bind(
+                entityManager.createQuery(query.select(pageable.getSort()), ExpenseResponse.class));
+
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select.getResultList(), pageable, false);
+        }
+
+        //one extra row tells whether there is a next page, without a count query
+        List<ExpenseResponse> rows = select
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public long countByFilter(UUID userId, ExpenseFilterRequest filter) {
+        ExpenseFilterQuery query = ExpenseFilterQuery.compile(userId, filter, null);
+        return query.bind(entityManager.createQuery(query.count(), Long.class)).getSingleResult();
+    }
+
+    @Override
+    public List<ExpenseResponse> findWindowByFilter(UUID userId, ExpenseFilterRequest filter, ExpenseCursor after, int limit) {
+        ExpenseFilterQuery query = ExpenseFilterQuery.compile(userId, filter, null).after(after);
+
+        return query.bind(entityManager.createQuery(query.selectInKeysetOrder(), ExpenseResponse.class))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ExpenseResponse> streamByFilter(UUID userId, ExpenseFilterRequest filter) {
+        ExpenseFilterQuery query = ExpenseFilterQuery.compile(userId, filter, null);
+
+        return query.bind(entityManager.createQuery(query.selectInKeysetOrder(), ExpenseResponse.class))
+                .setHint(HINT_FETCH_SIZE, ExpenseRepository.EXPORT_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    @Override
+    public Set<ExpenseDailyRollupId> lockCellsForDelete(UUID userId, ExpenseFilterRequest filter, Collection<UUID> ids) {
+        return lockCells(ExpenseFilterQuery.compile(userId, filter, ids));
+    }
+
+    @Override
+    public Set<ExpenseDailyRollupId> lockCellsForUpdate(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Collection<UUID> ids,
+            int shiftDays,
+            LocalDate today
+    ) {
+        return lockCells(compileUpdate(userId, filter, ids, shiftDays, today));
+    }
+
+    @Override
+    public int deleteByFilter(UUID userId, ExpenseFilterRequest filter, Collection<UUID> ids) {
+        ExpenseFilterQuery query = ExpenseFilterQuery.compile(userId, filter, ids);
+        return query.bind(entityManager.createQuery(query.delete())).executeUpdate();
+    }
+
+    @Override
+    public int updateByFilter(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Collection<UUID> ids,
+            ExpenseCategory newCategory,
+            int shiftDays,
+            LocalDateTime updatedAt,
+            LocalDate today
+    ) {
+        ExpenseFilterQuery query = compileUpdate(userId, filter, ids, shiftDays, today);
+
+        String assignments = """
+                e.category = COALESCE(:newCategory, e.category),
+                e.expenseDate = e.expenseDate + :shiftDays day,
+                e.updatedAt = :updatedAt,
+                e.version = e.version + 1""";
+
+        return query.bind(entityManager.createQuery(query.update(assignments)))
+                .setParameter("newCategory", newCategory)
+                .setParameter("updatedAt", updatedAt)
+                .executeUpdate();
+    }
+
+    private Set<ExpenseDailyRollupId> lockCells(ExpenseFilterQuery query) {
+        TypedQuery<ExpenseDailyRollupId> select = query.bind(
+                entityManager.createQuery(query.cells(), ExpenseDailyRollupId.class));
+
+        try (Stream<ExpenseDailyRollupId> rows = select.setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultStream()) {
+            return rows.collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    //the lock and the update must match the same rows, so both compile the guard here
+    private static ExpenseFilterQuery compileUpdate(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Collection<UUID> ids,
+            int shiftDays,
+            LocalDate today
+    ) {
+        return ExpenseFilterQuery.compile(userId, filter, ids)
+                .and("e.expenseDate + :shiftDays day <= :today", Map.of("shiftDays", shiftDays, "today", today));
+    }
+}
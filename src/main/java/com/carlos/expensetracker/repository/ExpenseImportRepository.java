@@ -0,0 +1,76 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+//csv import: rows are COPYed into a transaction-scoped staging table, then merged in one statement
+//everything runs on the connection of the surrounding transaction
+@Repository
+@RequiredArgsConstructor
+public class ExpenseImportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE IF NOT EXISTS expense_import_staging (
+                id UUID,
+                expense_date DATE NOT NULL,
+                category VARCHAR(20) NOT NULL,
+                amount NUMERIC(10, 2) NOT NULL,
+                description TEXT
+            ) ON COMMIT DROP
+            """;
+
+    //text format: tab separated, \\N for null
+    private static final String COPY_STAGING = """
+            COPY expense_import_staging (id, expense_date, category, amount, description) FROM STDIN
+            """;
+
+    //ids already taken (re-imported export, duplicates within the file) are skipped, not overwritten
+    //only rows that really went in come back, folded into the rollup cells they landed in and their descriptions
+    private static final String MERGE_STAGING = """
+            WITH inserted AS (
+                INSERT INTO expenses (id, user_id, amount, category, description, expense_date, created_at, updated_at, version)
+                SELECT COALESCE(s.id, gen_random_uuid()), ?, s.amount, s.category, s.description, s.expense_date, ?, ?, 0
+                FROM expense_import_staging s
+                ON CONFLICT (id) DO NOTHING
+                RETURNING expense_date, category, description
+            )
+            SELECT expense_date, category, description, COUNT(*) AS imported
+            FROM inserted
+            GROUP BY expense_date, category, description
+            """;
+
+    public void createStaging() {
+        jdbcTemplate.execute(CREATE_STAGING);
+    }
+
+    //no other statement can run on the connection until the copy is ended or cancelled
+    public CopyIn openCopy() {
+        return jdbcTemplate.execute((ConnectionCallback<CopyIn>) connection ->
+                connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING));
+    }
+
+    public List<MergedGroup> mergeStaging(UUID userId, LocalDateTime now) {
+        return jdbcTemplate.query(MERGE_STAGING, (rs, rowNum) -> new MergedGroup(
+                rs.getObject("expense_date", LocalDate.class),
+                ExpenseCategory.valueOf(rs.getString("category")),
+                rs.getString("description"),
+                rs.getInt("imported")
+        ), userId, now, now);
+    }
+
+    //imported rows sharing a rollup cell and a description
+    public record MergedGroup(LocalDate expenseDate, ExpenseCategory category, String description, int imported) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.ingest.JournalEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+//journal drain: one JDBC batch per drained chunk, runs on the connection of the surrounding transaction
+@Repository
+@RequiredArgsConstructor
+public class ExpenseIngestRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //the id comes from the journal, so a replayed entry is a no-op; entries of deleted users are dropped
+    private static final String INSERT_ENTRY = """
+            INSERT INTO expenses (id, user_id, amount, category, description, expense_date, created_at, updated_at, version)
+            SELECT ?, ?, ?, ?, ?, ?, ?, ?, 0
+            WHERE EXISTS (SELECT 1 FROM users WHERE id = ?)
+            ON CONFLICT (id) DO NOTHING
+            """;
+
+    //ids of the entries that really went in - a replayed or dropped entry returns no key
+    //update counts can't tell them apart: with reWriteBatchedInserts every count is SUCCESS_NO_INFO
+    public Set<UUID> insertBatch(List<JournalEntry> entries) {
+        KeyHolder keys = new GeneratedKeyHolder();
+
+        BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                JournalEntry entry = entries.get(i);
+                LocalDateTime acceptedAt = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(entry.acceptedAtMillis()), ZoneId.systemDefault());
+
+                ps.setObject(1, entry.id());
+                ps.setObject(2, entry.userId());
+                ps.setBigDecimal(3, entry.amount());
+                ps.setString(4, entry.category().name());
+                ps.setString(5, entry.description());
+                ps.setObject(6, entry.expenseDate());
+                ps.setObject(7, acceptedAt);
+                ps.setObject(8, acceptedAt);
+                ps.setObject(9, entry.userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        };
+
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_ENTRY, new String[]{"id"}), setter, keys);
+
+        return keys.getKeyList().stream()
+                .map(key -> (UUID) key.values().iterator().next())
+                .collect(Collectors.toSet());
+    }
+}
@@ -1,11 +1,8 @@
 package com.carlos.expensetracker.repository;
 
-import com.carlos.expensetracker.dto.response.CategorySummaryResponse;
-import com.carlos.expensetracker.dto.response.ExpenseSummaryResponse;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
 import com.carlos.expensetracker.entity.Expense;
 import com.carlos.expensetracker.entity.enums.ExpenseCategory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,44 +15,23 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
+public interface ExpenseRepository extends JpaRepository<Expense, UUID>, ExpenseFilterRepository {
 
-    List<Expense> findByUserId(UUID userId);
+    int EXPORT_FETCH_SIZE = 500;
 
-    Page<Expense> findByUserId(
-            UUID userId,
-            Pageable pageable
-    );
-
-    Page<Expense> findByUserIdAndExpenseDateBetween(
-            UUID userId,
-            LocalDate startDate,
-            LocalDate endDate,
-            Pageable pageable
-    );
-
-    Page<Expense> findByUserIdAndCategory(
-            UUID userId,
-            ExpenseCategory category,
-            Pageable pageable
-    );
+    //reads select straight into the response: hibernate keeps no entity, snapshot or proxy for them
+    //(user.id is the foreign key column, no join)
+    String SELECT_RESPONSE = "SELECT new com.carlos.expensetracker.dto.response.ExpenseResponse(" +
+            "e.id, e.user.id, e.amount, e.category, e.description, e.expenseDate, e.createdAt, e.updatedAt, e.version" +
+            ") FROM Expense e ";
 
-    Page<Expense> findByUserIdAndCategoryAndExpenseDateBetween(
-            UUID userId,
-            ExpenseCategory category,
-            LocalDate startDate,
-            LocalDate endDate,
-            Pageable pageable
-    );
+    @Query(SELECT_RESPONSE + "WHERE e.user.id = :userId")
+    List<ExpenseResponse> findResponsesByUserId(@Param("userId") UUID userId);
 
-    Optional<Expense> findByIdAndUserId(
-            UUID id,
-            UUID userID
-    );
-
-    void deleteByIdAndUserId(
-            UUID expenseId,
-            UUID userId
+    @Query(SELECT_RESPONSE + "WHERE e.id = :id AND e.user.id = :userId")
+    Optional<ExpenseResponse> findResponseByIdAndUserId(
+            @Param("id") UUID id,
+            @Param("userId") UUID userId
     );
 
     boolean existsByIdAndUserId(
@@ -83,43 +59,4 @@ public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
-
-    @Query("""
-                SELECT new com.carlos.expensetracker.dto.response.ExpenseSummaryResponse(
-                    COALESCE(SUM(e.amount), CAST(0 AS bigdecimal)),
-                    COUNT(e),
-                    COALESCE(AVG(e.amount), CAST(0 AS bigdecimal)),
-                    COALESCE(MIN(e.amount), CAST(0 AS bigdecimal)),
-                    COALESCE(MAX(e.amount), CAST(0 AS bigdecimal)),
-                    :startDate,
-                    :endDate
-                )
-                FROM Expense e
-                WHERE e.user.id = :userId
-                AND e.expenseDate BETWEEN :startDate AND :endDate
-            """)
-    ExpenseSummaryResponse calculateSummary(
-            @Param("userId") UUID userId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
-    );
-
-    @Query("""
-                SELECT new com.carlos.expensetracker.dto.response.CategorySummaryResponse(
-                    e.category,
-                    COALESCE(SUM(e.amount), CAST(0 AS bigdecimal)),
-                    COUNT(e),
-                    CAST(0 AS bigdecimal)
-                )
-                FROM Expense e
-                WHERE e.user.id = :userId
-                AND e.expenseDate BETWEEN :startDate AND :endDate
-                GROUP BY e.category
-                ORDER BY SUM(e.amount) DESC
-            """)
-    List<CategorySummaryResponse> calculateByCategory(
-            @Param("userId") UUID userId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
-    );
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.UpdateExpenseRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+//single-statement writes that need RETURNING, which JPA can't express
+//runs on the connection of the surrounding JPA transaction
+@Repository
+@RequiredArgsConstructor
+public class ExpenseWriteRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    //the self-join locks the row and exposes its previous values, so the rollups
+    //can be maintained without reading the expense first
+    private static final String UPDATE_RETURNING = """
+            UPDATE expenses e
+            SET amount = COALESCE(:amount, e.amount),
+                category = COALESCE(:category, e.category),
+                description = COALESCE(:description, e.description),
+                expense_date = COALESCE(:expenseDate, e.expense_date),
+                updated_at = :updatedAt,
+                version = e.version + 1
+            FROM (
+                SELECT id, amount, category, description, expense_date
+                FROM expenses
+                WHERE id = :id AND user_id = :userId
+                FOR UPDATE
+            ) previous
+            WHERE e.id = previous.id
+            AND (:version IS NULL OR e.version = :version)
+            RETURNING e.id, e.user_id, e.amount, e.category, e.description, e.expense_date,
+                      e.created_at, e.updated_at, e.version,
+                      previous.amount AS previous_amount,
+                      previous.category AS previous_category,
+                      previous.description AS previous_description,
+                      previous.expense_date AS previous_date
+            """;
+
+    private static final String DELETE_RETURNING = """
+            DELETE FROM expenses
+            WHERE id = :id AND user_id = :userId
+            RETURNING expense_date, category, description
+            """;
+
+    public Optional<UpdatedExpense> updateReturning(
+            UUID userId,
+            UUID expenseId,
+            UpdateExpenseRequest request,
+            LocalDateTime updatedAt
+    ) {
+        //typed nulls - an untyped null makes COALESCE ambiguous for postgres
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", expenseId)
+                .addValue("userId", userId)
+                .addValue("amount", request.amount(), Types.NUMERIC)
+                .addValue("category", request.category() != null ? request.category().name() : null, Types.VARCHAR)
+                .addValue("description", request.description(), Types.VARCHAR)
+                .addValue("expenseDate", request.expenseDate(), Types.DATE)
+                .addValue("updatedAt", updatedAt, Types.TIMESTAMP)
+                .addValue("version", request.version(), Types.BIGINT);
+
+        return jdbcTemplate.query(UPDATE_RETURNING, params, (rs, rowNum) -> new UpdatedExpense(
+                new ExpenseResponse(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("user_id", UUID.class),
+                        rs.getBigDecimal("amount"),
+                        ExpenseCategory.valueOf(rs.getString("category")),
+                        rs.getString("description"),
+                        rs.getObject("expense_date", LocalDate.class),
+                        rs.getObject("created_at", LocalDateTime.class),
+                        rs.getObject("updated_at", LocalDateTime.class),
+                        rs.getLong("version")
+                ),
+                rs.getObject("previous_date", LocalDate.class),
+                ExpenseCategory.valueOf(rs.getString("previous_category")),
+                rs.getBigDecimal("previous_amount"),
+                rs.getString("previous_description")
+        )).stream().findFirst();
+    }
+
+    public Optional<DeletedExpense> deleteReturning(UUID userId, UUID expenseId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", expenseId)
+                .addValue("userId", userId);
+
+        return jdbcTemplate.query(DELETE_RETURNING, params, (rs, rowNum) -> new DeletedExpense(
+                rs.getObject("expense_date", LocalDate.class),
+                ExpenseCategory.valueOf(rs.getString("category")),
+                rs.getString("description")
+        )).stream().findFirst();
+    }
+
+    public record UpdatedExpense(
+            ExpenseResponse expense,
+            LocalDate previousDate,
+            ExpenseCategory previousCategory,
+            BigDecimal previousAmount,
+            String previousDescription
+    ) {
+    }
+
+    public record DeletedExpense(LocalDate expenseDate, ExpenseCategory category, String description) {
+    }
+}
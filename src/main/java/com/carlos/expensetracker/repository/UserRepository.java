@@ -1,7 +1,12 @@
 package com.carlos.expensetracker.repository;
 
 import com.carlos.expensetracker.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +16,27 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    @Query("SELECT u.expenseCount FROM User u WHERE u.id = :userId")
+    Optional<Long> findExpenseCount(@Param("userId") UUID userId);
+
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :userId")
+    Optional<Long> findDataVersion(@Param("userId") UUID userId);
+
+    //a change of the count is a change of the data, so the version moves with it in the same row update
+    @Modifying
+    @Query("""
+            UPDATE User u
+            SET u.expenseCount = u.expenseCount + :delta, u.dataVersion = u.dataVersion + 1
+            WHERE u.id = :userId
+            """)
+    int adjustExpenseCount(@Param("userId") UUID userId, @Param("delta") long delta);
+
+    //writes that keep the count (updates, rollup repairs)
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id = :userId")
+    int bumpDataVersion(@Param("userId") UUID userId);
+
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    Slice<UUID> findAllIds(Pageable pageable);
 }
@@ -0,0 +1,69 @@
+package com.carlos.expensetracker.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+//node-local buckets: no round trip, but every replica enforces its own copy of the limits
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryBucketStore implements RateLimitBucketStore {
+
+    //an hour without requests refills both limits, so expiring then forgets nothing
+    //past the size bound the least recently used users lose their (partial) limits first
+    private final Cache<String, Bucket> buckets = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    @Override
+    public Consumption tryConsume(String key, long tokens) {
+        Bucket bucket = buckets.get(key, k -> createBucket());
+
+        //one atomic consumption over every limit; the remaining tokens come from the same probe
+        VerboseResult<ConsumptionProbe> result = bucket.asVerbose().tryConsumeAndReturnRemaining(tokens);
+        ConsumptionProbe probe = result.getValue();
+
+        return new Consumption(
+                probe.isConsumed(),
+                result.getDiagnostics().getAvailableTokensPerEachBandwidth(),
+                probe.getNanosToWaitForRefill()
+        );
+    }
+
+    @Override
+    public Optional<long[]> getRemaining(String key) {
+        return Optional.ofNullable(buckets.getIfPresent(key))
+                .map(bucket -> bucket.asVerbose().getAvailableTokens().getDiagnostics().getAvailableTokensPerEachBandwidth());
+    }
+
+    @Override
+    public void remove(String key) {
+        buckets.invalidate(key);
+    }
+
+    //expiry is amortized over cache activity; this only makes sure an idle node still lets go of its buckets
+    @Override
+    public void cleanUp() {
+        buckets.cleanUp();
+    }
+
+    private Bucket createBucket() {
+        LocalBucketBuilder builder = Bucket.builder();
+
+        for (Bandwidth limit : RateLimitService.bucketConfiguration().getBandwidths()) {
+            builder.addLimit(limit);
+        }
+
+        return builder.build();
+    }
+}
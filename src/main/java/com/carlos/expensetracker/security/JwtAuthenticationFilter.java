@@ -15,6 +15,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -35,30 +36,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             //take jwt
             String jwt = getJwtFromRequest(request);
 
-            //validate - if jwt = true, if validate and if do not have anything on the context
+            //validate - if jwt = true and if do not have anything on the context
             if (StringUtils.hasText(jwt)
-                    && jwtTokenProvider.validateToken(jwt)
                     && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                //take email
-                String email = jwtTokenProvider.getEmailFromToken(jwt);
+                //one signature check per request (or none for a recently verified token)
+                Optional<TokenClaims> claims = jwtTokenProvider.verifyToken(jwt);
 
-                //load user
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                if (claims.isPresent()) {
+                    //build the principal from the signed claims - no user lookup per request
+                    UserDetails userDetails = userDetailsService.loadUserFromClaims(claims.get());
 
-                //authentication
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+                    //authentication
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities()
+                            );
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                //setting security config
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("User authenticated via JWT   : {}", email);
+                    //setting security config
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    log.debug("User authenticated via JWT   : {}", userDetails.getUsername());
+                }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
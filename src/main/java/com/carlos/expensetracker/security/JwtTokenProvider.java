@@ -12,13 +12,26 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_USERNAME = "username";
+    public static final String CLAIM_ROLE = "role";
+
+    private static final int VERIFIED_CACHE_SLOTS = 4096;
+    private static final long VERIFIED_CACHE_TTL_MS = 60_000;
+
     private final SecretKey secretKey;
 
+    //thread-safe and immutable - built once instead of per call
+    private final JwtParser jwtParser;
+
+    private final VerifiedTokenCache verifiedTokens;
+
     @Getter
     private final long jwtExpiresMs;
 
@@ -28,6 +41,10 @@ public class JwtTokenProvider {
     ) {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(VERIFIED_CACHE_SLOTS, VERIFIED_CACHE_TTL_MS);
         this.jwtExpiresMs = jwtExpiresMs;
     }
 
@@ -57,24 +74,50 @@ public class JwtTokenProvider {
     public String getEmailFromToken(String token) {
         Claims claims = extractClaims(token);
 
-        return claims.get("email", String.class);
+        return claims.get(CLAIM_EMAIL, String.class);
     }
 
     public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+
+    //single verification step per request - recently seen tokens skip the signature check
+    public Optional<TokenClaims> verifyToken(String token) {
+        long now = System.currentTimeMillis();
+
+        TokenClaims cached = verifiedTokens.get(token, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            TokenClaims claims = parseToken(token);
+            verifiedTokens.put(token, claims, now);
+
+            return Optional.of(claims);
         } catch (SecurityException | MalformedJwtException |
                  ExpiredJwtException | UnsupportedJwtException |
                  IllegalArgumentException ex) {
 
             log.warn("Invalid JWT Token: {}", ex.getMessage());
-            return false;
+            return Optional.empty();
         }
+    }
 
+    //uncached verification
+    TokenClaims parseToken(String token) {
+        Claims claims = extractClaims(token);
+
+        String subject = claims.getSubject();
+        Date expiration = claims.getExpiration();
+
+        return new TokenClaims(
+                subject != null ? UUID.fromString(subject) : null,
+                claims.get(CLAIM_EMAIL, String.class),
+                claims.get(CLAIM_USERNAME, String.class),
+                claims.get(CLAIM_ROLE, String.class),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE
+        );
     }
 
     //Inline return in both or try to change the method for use on both
@@ -82,9 +125,9 @@ public class JwtTokenProvider {
     private String buildToken(CustomUserDetails userDetails, Date now, Date expiryDate) {
         return Jwts.builder()
                 .subject(userDetails.getUserId().toString())
-                .claim("email", userDetails.getEmail())
-                .claim("username", userDetails.getUsernameField())
-                .claim("role", userDetails.getUser().getRole().name())
+                .claim(CLAIM_EMAIL, userDetails.getEmail())
+                .claim(CLAIM_USERNAME, userDetails.getUsernameField())
+                .claim(CLAIM_ROLE, userDetails.getUser().getRole().name())
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(secretKey, Jwts.SIG.HS256)
@@ -92,9 +135,7 @@ public class JwtTokenProvider {
     }
 
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
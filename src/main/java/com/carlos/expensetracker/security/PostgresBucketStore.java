@@ -0,0 +1,172 @@
+package com.carlos.expensetracker.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.distributed.BucketProxy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+//one limit for all replicas: the buckets live in postgres (PostgresProxyManager)
+//with rate-limit.local-batch > 1 a node reserves up to that many tokens per round trip and hands them out locally,
+//so most requests never reach the database; a reservation is taken from the shared bucket, so the replicas
+//together never admit more than the limit - what a node didn't use within rate-limit.lease-ttl goes back to it
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "postgres")
+public class PostgresBucketStore implements RateLimitBucketStore {
+
+    //an hour without requests refills both limits, so an idle row (or lease) holds nothing worth keeping
+    private static final Duration IDLE = Duration.ofHours(1);
+
+    private static final String DELETE_IDLE =
+            "DELETE FROM rate_limit_buckets WHERE updated_at < CURRENT_TIMESTAMP - make_interval(secs => ?)";
+
+    private final PostgresProxyManager proxyManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final long batch;
+    private final long leaseTtlNanos;
+    private final TimeMeter clock;
+
+    private final Cache<String, Lease> leases = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterAccess(IDLE)
+            .build();
+
+    public PostgresBucketStore(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${rate-limit.local-batch:10}") int batch,
+            @Value("${rate-limit.lease-ttl:5s}") Duration leaseTtl
+    ) {
+        this(new PostgresProxyManager(dataSource, TimeMeter.SYSTEM_MILLISECONDS), jdbcTemplate, batch, leaseTtl,
+                TimeMeter.SYSTEM_MILLISECONDS);
+    }
+
+    //the clock drives both the buckets and the leases
+    PostgresBucketStore(PostgresProxyManager proxyManager, JdbcTemplate jdbcTemplate, int batch, Duration leaseTtl,
+                        TimeMeter clock) {
+        this.proxyManager = proxyManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batch = Math.max(batch, 1);
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public Consumption tryConsume(String key, long tokens) {
+        return leases.get(key, Lease::new).take(tokens);
+    }
+
+    @Override
+    public Optional<long[]> getRemaining(String key) {
+        Lease lease = leases.getIfPresent(key);
+
+        if (lease == null) {
+            //another replica may have created it
+            if (proxyManager.getProxyConfiguration(key).isEmpty()) {
+                return Optional.empty();
+            }
+            lease = leases.get(key, Lease::new);
+        }
+
+        return Optional.of(lease.remaining());
+    }
+
+    @Override
+    public void remove(String key) {
+        leases.invalidate(key);
+        proxyManager.removeProxy(key);
+    }
+
+    //every replica runs it; deleting the same rows twice is harmless
+    @Override
+    public void cleanUp() {
+        leases.cleanUp();
+        int deleted = jdbcTemplate.update(DELETE_IDLE, IDLE.toSeconds());
+
+        if (deleted > 0) {
+            log.debug("Removed {} idle rate limit buckets", deleted);
+        }
+    }
+
+    //this node's view of one user's shared bucket: tokens reserved from it, and what it had left at the last sync
+    private final class Lease {
+
+        //not synchronized: the database round trip would pin a virtual thread
+        private final Lock lock = new ReentrantLock();
+        private final BucketProxy bucket;
+
+        private long reserved;
+        private long reservedUntil;
+        private long[] shared;
+
+        private Lease(String key) {
+            this.bucket = proxyManager.builder().build(key, RateLimitService::bucketConfiguration);
+        }
+
+        private Consumption take(long tokens) {
+            lock.lock();
+
+            try {
+                long now = clock.currentTimeNanos();
+
+                //an expired reservation goes back to the shared bucket (what overflows a refilled limit is dropped),
+                //otherwise a user slower than lease-ttl would pay a whole batch per request
+                if (reserved > 0 && now - reservedUntil >= 0) {
+                    bucket.addTokens(reserved);
+                    reserved = 0;
+                }
+
+                if (reserved < tokens) {
+                    VerboseResult<Long> result = bucket.asVerbose().tryConsumeAsMuchAsPossible(Math.max(batch, tokens) - reserved);
+                    reserved += result.getValue();
+                    reservedUntil = now + leaseTtlNanos;
+                    shared = result.getDiagnostics().getAvailableTokensPerEachBandwidth();
+                }
+
+                if (reserved < tokens) {
+                    long wait = bucket.estimateAbilityToConsume(tokens - reserved).getNanosToWaitForRefill();
+                    return new Consumption(false, withReserved(), wait);
+                }
+
+                reserved -= tokens;
+                return new Consumption(true, withReserved(), 0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long[] remaining() {
+            lock.lock();
+
+            try {
+                shared = bucket.asVerbose().getAvailableTokens().getDiagnostics().getAvailableTokensPerEachBandwidth();
+                return withReserved();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //reserved tokens are still this user's to spend
+        private long[] withReserved() {
+            long[] remaining = shared.clone();
+
+            for (int i = 0; i < remaining.length; i++) {
+                remaining[i] += reserved;
+            }
+
+            return remaining;
+        }
+    }
+}
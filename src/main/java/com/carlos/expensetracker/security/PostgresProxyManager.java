@@ -0,0 +1,145 @@
+package com.carlos.expensetracker.security;
+
+import com.carlos.expensetracker.exception.DatabaseException;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//bucket4j's SELECT ... FOR UPDATE protocol over rate_limit_buckets (V17): every command is one short
+//transaction on a pooled connection that locks the user's row, runs the command against the serialized
+//state and writes it back - the same thing bucket4j-postgresql does
+class PostgresProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+    private static final String SELECT_FOR_UPDATE = "SELECT state FROM rate_limit_buckets WHERE id = ? FOR UPDATE";
+
+    //the empty row is what the next attempt locks; a concurrent insert of the same key is just as good
+    //(the primary key is the only constraint, so no conflict target - h2 runs it too)
+    private static final String INSERT_EMPTY = "INSERT INTO rate_limit_buckets (id, state) VALUES (?, NULL) ON CONFLICT DO NOTHING";
+
+    private static final String UPDATE = "UPDATE rate_limit_buckets SET state = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String DELETE = "DELETE FROM rate_limit_buckets WHERE id = ?";
+
+    private final DataSource dataSource;
+
+    PostgresProxyManager(DataSource dataSource, TimeMeter clock) {
+        super(ClientSideConfig.getDefault().withClientClock(clock));
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE)) {
+            statement.setString(1, key);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DatabaseException("Failed to remove rate limit bucket", ex);
+        }
+    }
+
+    @Override
+    protected SelectForUpdateBasedTransaction allocateTransaction(String key) {
+        try {
+            return new JdbcTransaction(dataSource.getConnection(), key);
+        } catch (SQLException ex) {
+            throw new DatabaseException("Failed to get a connection for the rate limit", ex);
+        }
+    }
+
+    private static final class JdbcTransaction implements SelectForUpdateBasedTransaction {
+
+        private final Connection connection;
+        private final String key;
+
+        private JdbcTransaction(Connection connection, String key) {
+            this.connection = connection;
+            this.key = key;
+        }
+
+        @Override
+        public void begin() {
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        @Override
+        public LockAndGetResult tryLockAndGet() {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+                statement.setString(1, key);
+
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? LockAndGetResult.locked(rs.getBytes("state")) : LockAndGetResult.notLocked();
+                }
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        @Override
+        public boolean tryInsertEmptyData() {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EMPTY)) {
+                statement.setString(1, key);
+                statement.executeUpdate();
+                return true;
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        @Override
+        public void update(byte[] data, RemoteBucketState newState) {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                statement.setBytes(1, data);
+                statement.setString(2, key);
+                statement.executeUpdate();
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        @Override
+        public void commit() {
+            try {
+                connection.commit();
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        @Override
+        public void rollback() {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        //back to the pool (hikari restores auto-commit)
+        @Override
+        public void release() {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                throw failed(ex);
+            }
+        }
+
+        private static DatabaseException failed(SQLException ex) {
+            return new DatabaseException("Rate limit bucket operation failed", ex);
+        }
+    }
+}
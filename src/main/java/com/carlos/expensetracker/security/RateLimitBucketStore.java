@@ -0,0 +1,21 @@
+package com.carlos.expensetracker.security;
+
+import java.util.Optional;
+
+//where the per-user buckets live (rate-limit.store): memory (per node, the default) or postgres (shared by the replicas)
+//remaining tokens are per limit, in the order of RateLimitService.bucketConfiguration()
+public interface RateLimitBucketStore {
+
+    Consumption tryConsume(String key, long tokens);
+
+    //empty when the key has no bucket (nothing consumed lately)
+    Optional<long[]> getRemaining(String key);
+
+    void remove(String key);
+
+    //lets go of what idle users left behind
+    void cleanUp();
+
+    record Consumption(boolean consumed, long[] remaining, long nanosToWait) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.carlos.expensetracker.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//tokens a request to the handler takes from the user's rate limit (1 when absent)
+//cost = value + size / perPageSize + days in the filter's range / perDays, at most the per-minute limit
+//a range without a start counts as openRangeDays - the range the handler falls back to
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimitCost {
+
+    int OPEN_RANGE_DAYS = 365;
+
+    int value() default 1;
+
+    //one more token per this many requested rows ("size" parameter); 0 = not scaled
+    int perPageSize() default 0;
+
+    //one more token per this many days of startDate/endDate/period; 0 = not scaled
+    int perDays() default 0;
+
+    //days charged when the request has no start date
+    int openRangeDays() default OPEN_RANGE_DAYS;
+}
@@ -1,5 +1,7 @@
 package com.carlos.expensetracker.security;
 
+import com.carlos.expensetracker.entity.enums.FilterPeriod;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -7,12 +9,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RateLimitInterceptor implements HandlerInterceptor {
+    //the page size spring uses when the request has none (@PageableDefault in the controllers)
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
     private final RateLimitService rateLimitService;
 
     @Override
@@ -22,6 +32,9 @@ public class RateLimitInterceptor implements HandlerInterceptor {
             HttpServletResponse response,
             Object handler) {
 
+        //async dispatch of a streamed response - the request was already charged
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+
         String requestURI = request.getRequestURI();
 
         if (isPublicEndpoint(requestURI)) return true;
@@ -33,9 +46,10 @@ public class RateLimitInterceptor implements HandlerInterceptor {
 
             String username = authentication.getName();
 
-            rateLimitService.checkRateLimit(username);
+            long cost = cost(handler, request);
 
-            RateLimitService.RateLimitInfo info = rateLimitService.getRateLimitInfo(username);
+            RateLimitService.RateLimitInfo info = rateLimitService.checkRateLimit(username, cost);
+            response.setHeader("X-RateLimit-Cost", String.valueOf(cost));
             response.setHeader("X-RateLimit-Limit-Minute", String.valueOf(info.limitPerMinute()));
             response.setHeader("X-RateLimit-Remaining-Minute", String.valueOf(info.remainingPerMinute()));
             response.setHeader("X-RateLimit-Limit-Hour", String.valueOf(info.limitPerHour()));
@@ -46,6 +60,59 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         return true;
     }
 
+    //tokens declared by the handler's @RateLimitCost, scaled by the page size and the date range asked for
+    //the parameters are read raw: a malformed one doesn't scale the cost, binding rejects it afterwards
+    static long cost(Object handler, HttpServletRequest request) {
+        RateLimitCost rateLimitCost = handler instanceof HandlerMethod handlerMethod
+                ? handlerMethod.getMethodAnnotation(RateLimitCost.class)
+                : null;
+
+        if (rateLimitCost == null) return RateLimitService.tokens(1);
+
+        long cost = rateLimitCost.value();
+
+        if (rateLimitCost.perPageSize() > 0) {
+            cost += pageSize(request) / rateLimitCost.perPageSize();
+        }
+
+        if (rateLimitCost.perDays() > 0) {
+            cost += rangeDays(request, rateLimitCost.openRangeDays()) / rateLimitCost.perDays();
+        }
+
+        //the header and the charge must agree, so the cap is applied here and nowhere after
+        return RateLimitService.tokens(cost);
+    }
+
+    private static int pageSize(HttpServletRequest request) {
+        try {
+            String size = request.getParameter("size");
+            return size != null ? Math.max(Integer.parseInt(size), 0) : DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException ex) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
+    //same precedence as ExpenseFilterRequest: a period other than CUSTOM wins over the dates
+    private static long rangeDays(HttpServletRequest request, int openRangeDays) {
+        try {
+            String period = request.getParameter("period");
+            if (period != null && !period.isBlank()) {
+                FilterPeriod filterPeriod = FilterPeriod.valueOf(period.strip());
+                if (filterPeriod != FilterPeriod.CUSTOM) return filterPeriod.getDays();
+            }
+
+            String startDate = request.getParameter("startDate");
+            if (startDate == null || startDate.isBlank()) return openRangeDays;
+
+            String endDate = request.getParameter("endDate");
+            LocalDate end = endDate != null && !endDate.isBlank() ? LocalDate.parse(endDate.strip()) : LocalDate.now();
+
+            return Math.max(ChronoUnit.DAYS.between(LocalDate.parse(startDate.strip()), end), 0);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            return 0;
+        }
+    }
+
     private boolean isPublicEndpoint(String requestURI) {
         return requestURI.startsWith("/api/auth/")
                 || requestURI.startsWith("/actuator/")
@@ -2,16 +2,14 @@ package com.carlos.expensetracker.security;
 
 import com.carlos.expensetracker.exception.RateLimitingException;
 import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.github.bucket4j.BucketConfiguration;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 @Slf4j
@@ -19,91 +17,93 @@ import java.util.concurrent.ConcurrentHashMap;
 @EnableScheduling
 public class RateLimitService {
 
-    private final Map<String, UserRateLimit> buckets = new ConcurrentHashMap<>();
-
     private static final int LIMIT_PER_MINUTE = 60;
     private static final int LIMIT_PER_HOUR = 1000;
 
+    //position of each limit in the bucket (order of addLimit)
+    private static final int MINUTE = 0;
+    private static final int HOUR = 1;
+
+    //both limits in one bucket: a request is taken from both or from neither
+    private static final BucketConfiguration BUCKET_CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder()
+                    .capacity(LIMIT_PER_MINUTE)
+                    .refillGreedy(LIMIT_PER_MINUTE, Duration.ofMinutes(1))
+                    .build())
+            .addLimit(Bandwidth.builder()
+                    .capacity(LIMIT_PER_HOUR)
+                    .refillGreedy(LIMIT_PER_HOUR, Duration.ofHours(1))
+                    .build())
+            .build();
+
+    private final RateLimitBucketStore bucketStore;
+
+    //node-local buckets, without spring
+    public RateLimitService() {
+        this(new InMemoryBucketStore());
+    }
 
-    private UserRateLimit createBucket() {
-
-        Bucket minuteBucket = Bucket.builder()
-                .addLimit(Bandwidth.classic(
-                        LIMIT_PER_MINUTE,
-                        Refill.greedy(LIMIT_PER_MINUTE, Duration.ofMinutes(1))
-                ))
-                .build();
-
-        Bucket hourBucket = Bucket.builder()
-                .addLimit(Bandwidth.classic(
-                        LIMIT_PER_HOUR,
-                        Refill.greedy(LIMIT_PER_HOUR, Duration.ofHours(1))
-                ))
-                .build();
-
-        return new UserRateLimit(minuteBucket, hourBucket);
-
+    @Autowired
+    public RateLimitService(RateLimitBucketStore bucketStore) {
+        this.bucketStore = bucketStore;
     }
 
-    public void checkRateLimit(String userId) {
-        UserRateLimit userLimit = buckets.computeIfAbsent(userId, k -> createBucket());
+    static BucketConfiguration bucketConfiguration() {
+        return BUCKET_CONFIGURATION;
+    }
 
-        boolean minuteAllowed = userLimit.minuteBucket.tryConsume(1);
-        boolean hourAllowed = userLimit.hourBucket.tryConsume(1);
+    public RateLimitInfo checkRateLimit(String userId) {
+        return checkRateLimit(userId, 1);
+    }
 
-        if (!minuteAllowed || !hourAllowed) {
-            long minuteWait = userLimit.minuteBucket
-                    .estimateAbilityToConsume(1)
-                    .getNanosToWaitForRefill();
+    //tokens actually taken for a request cost - callers report this, not the raw cost
+    //a cost above the per-minute limit could never be paid, so it is capped there
+    public static long tokens(long cost) {
+        return Math.clamp(cost, 1, LIMIT_PER_MINUTE);
+    }
 
-            long hourWait = userLimit.hourBucket
-                    .estimateAbilityToConsume(1)
-                    .getNanosToWaitForRefill();
+    //one consumption of cost tokens; the remaining tokens come with it, for the response headers
+    public RateLimitInfo checkRateLimit(String userId, long cost) {
+        long tokens = tokens(cost);
+        RateLimitBucketStore.Consumption consumption = bucketStore.tryConsume(userId, tokens);
 
-            long secondsToWait = Duration.ofNanos(
-                    Math.max(minuteWait, hourWait)
-            ).toSeconds();
+        if (!consumption.consumed()) {
+            //the wait of the limit that rejected, rounded up so a retry at that time succeeds
+            long secondsToWait = (consumption.nanosToWait() + 999_999_999) / 1_000_000_000;
 
-            log.warn("Rate limit exceed for user: {}", userId);
+            log.warn("Rate limit exceed for user: {} (cost: {})", userId, tokens);
 
             throw new RateLimitingException(
                     "Too many requests. Try again in " + secondsToWait + " seconds",
-                    secondsToWait
+                    secondsToWait,
+                    tokens
             );
         }
+
+        return toInfo(consumption.remaining());
     }
 
     public void clearRate(String userId) {
-        buckets.remove(userId);
+        bucketStore.remove(userId);
     }
 
     @Scheduled(fixedRate = 600000) //10min
     public void evictInactiveBuckets() {
-        buckets.entrySet().removeIf(entry -> {
-           UserRateLimit userLimit = entry.getValue();
-
-           boolean minuteFull = userLimit.minuteBucket.getAvailableTokens() == LIMIT_PER_MINUTE;
-           boolean hourFull = userLimit.hourBucket.getAvailableTokens() == LIMIT_PER_HOUR;
-
-           return minuteFull && hourFull;
-        });
+        bucketStore.cleanUp();
     }
 
     public RateLimitInfo getRateLimitInfo(String userId) {
-        UserRateLimit userLimit = buckets.get(userId);
-
-        if (userLimit == null) {
-            return new RateLimitInfo(LIMIT_PER_MINUTE, LIMIT_PER_HOUR, LIMIT_PER_MINUTE, LIMIT_PER_HOUR);
-        }
-
-        int remainingMinute = (int) userLimit.minuteBucket.getAvailableTokens();
-        int remainingHour = (int) userLimit.hourBucket.getAvailableTokens();
+        return bucketStore.getRemaining(userId)
+                .map(this::toInfo)
+                .orElseGet(() -> new RateLimitInfo(LIMIT_PER_MINUTE, LIMIT_PER_HOUR, LIMIT_PER_MINUTE, LIMIT_PER_HOUR));
+    }
 
+    private RateLimitInfo toInfo(long[] remaining) {
         return new RateLimitInfo(
                 LIMIT_PER_MINUTE,
                 LIMIT_PER_HOUR,
-                remainingMinute,
-                remainingHour
+                (int) remaining[MINUTE],
+                (int) remaining[HOUR]
         );
     }
 
@@ -114,17 +114,4 @@ public class RateLimitService {
             int remainingPerHour
     ) {
     }
-
-    private static class UserRateLimit {
-        private final Bucket minuteBucket;
-        private final Bucket hourBucket;
-
-        public UserRateLimit(Bucket minuteBucket, Bucket hourBucket) {
-            this.minuteBucket = minuteBucket;
-            this.hourBucket = hourBucket;
-        }
-
-    }
-
-    //evictInactiveBuckets methods - cleaning the buckets for inactive users @Schedule
 }
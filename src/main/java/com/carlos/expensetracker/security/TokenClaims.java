@@ -0,0 +1,13 @@
+package com.carlos.expensetracker.security;
+
+import java.util.UUID;
+
+//claims of a token whose signature and expiration were already checked
+public record TokenClaims(
+        UUID userId,
+        String email,
+        String username,
+        String role,
+        long expiresAtMillis
+) {
+}
@@ -1,7 +1,10 @@
 package com.carlos.expensetracker.security;
 
 import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.UserRole;
 import com.carlos.expensetracker.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,14 +13,24 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
+    private static final int PRINCIPAL_CACHE_MAX_SIZE = 10_000;
+    private static final Duration PRINCIPAL_CACHE_TTL = Duration.ofMinutes(5);
 
     private final UserRepository userRepository;
 
+    //only for tokens that still need the row - login always goes to the database
+    private final Cache<String, UserDetails> principalCache = Caffeine.newBuilder()
+            .maximumSize(PRINCIPAL_CACHE_MAX_SIZE)
+            .expireAfterWrite(PRINCIPAL_CACHE_TTL)
+            .build();
+
 
     @Override
     @Transactional(readOnly = true)
@@ -31,4 +44,29 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return new CustomUserDetails(user);
     }
+
+    //principal from the verified token - no query when the claims are complete
+    public UserDetails loadUserFromClaims(TokenClaims claims) {
+        String email = claims.email();
+        String username = claims.username();
+        String role = claims.role();
+
+        if (email == null) {
+            throw new UsernameNotFoundException("Token without email claim");
+        }
+
+        if (claims.userId() == null || username == null || role == null) {
+            log.debug("Incomplete token claims, loading user row: {}", email);
+            return principalCache.get(email, this::loadUserByUsername);
+        }
+
+        User user = User.builder()
+                .id(claims.userId())
+                .email(email)
+                .username(username)
+                .role(UserRole.valueOf(role))
+                .build();
+
+        return new CustomUserDetails(user);
+    }
 }
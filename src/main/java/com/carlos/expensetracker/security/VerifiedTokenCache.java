@@ -0,0 +1,47 @@
+package com.carlos.expensetracker.security;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//direct-mapped, lock-free: a slot is picked by the token hash and overwritten on collision.
+//the full token is compared on lookup, so a colliding token never gets someone else's claims
+final class VerifiedTokenCache {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long ttlMillis;
+
+    VerifiedTokenCache(int capacity, long ttlMillis) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    TokenClaims get(String token, long nowMillis) {
+        Entry entry = slots.get(indexOf(token));
+
+        if (entry != null && entry.validUntilMillis > nowMillis && entry.token.equals(token)) {
+            return entry.claims;
+        }
+
+        return null;
+    }
+
+    void put(String token, TokenClaims claims, long nowMillis) {
+        //never outlive the token itself
+        long validUntil = Math.min(claims.expiresAtMillis(), nowMillis + ttlMillis);
+
+        slots.set(indexOf(token), new Entry(token, claims, validUntil));
+    }
+
+    private int indexOf(String token) {
+        int hash = token.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private record Entry(String token, TokenClaims claims, long validUntilMillis) {
+    }
+}
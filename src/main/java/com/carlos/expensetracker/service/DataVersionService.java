@@ -0,0 +1,9 @@
+package com.carlos.expensetracker.service;
+
+import java.util.UUID;
+
+public interface DataVersionService {
+
+    //moves with every committed expense write of the user, on any replica
+    long getDataVersion(UUID userId);
+}
@@ -0,0 +1,44 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.event.ExpenseCachesResetEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+
+//users.data_version, cached per node so a conditional GET is answered without the database
+@Service
+@RequiredArgsConstructor
+public class DataVersionServiceImpl implements DataVersionService {
+    private final UserRepository userRepository;
+
+    //an invalidation waits for a load in progress and then removes it, so a version read
+    //before a commit never outlives that commit's event
+    private final Cache<UUID, Long> versions = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    @Override
+    public long getDataVersion(UUID userId) {
+        return versions.get(userId, id -> userRepository.findDataVersion(id).orElse(0L));
+    }
+
+    //fallback: writes of other replicas arrive outside a transaction (ExpenseInvalidationBus)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        versions.invalidate(event.userId());
+    }
+
+    @EventListener
+    public void onCachesReset(ExpenseCachesResetEvent event) {
+        versions.invalidateAll();
+    }
+}
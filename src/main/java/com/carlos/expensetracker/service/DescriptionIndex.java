@@ -0,0 +1,111 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.response.DescriptionSuggestionResponse;
+import com.carlos.expensetracker.repository.ExpenseDescriptionRepository.DescriptionUsage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//one user's descriptions keyed by their lower-cased text, so a prefix is a key range
+//case variants share an entry and keep the first spelling seen
+//times are System.nanoTime(): when the load query started and finished, and when a write last reached the index
+final class DescriptionIndex {
+
+    private static final Comparator<DescriptionSuggestionResponse> BY_USES = Comparator
+            .comparingLong(DescriptionSuggestionResponse::uses).reversed()
+            .thenComparing(DescriptionSuggestionResponse::description);
+
+    private final ConcurrentSkipListMap<String, DescriptionSuggestionResponse> usages = new ConcurrentSkipListMap<>();
+
+    //false when only the most used descriptions were loaded - a miss doesn't mean the user never typed it
+    private final boolean complete;
+
+    private final long loadStartedAt;
+    private final long loadedAt;
+    private volatile long changedAt;
+
+    //stale: a write it couldn't be patched with - still answers until the rebuild replaces it
+    private volatile boolean stale;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    DescriptionIndex(List<DescriptionUsage> loaded, boolean complete, long loadStartedAt, long loadedAt) {
+        this.complete = complete;
+        this.loadStartedAt = loadStartedAt;
+        this.loadedAt = loadedAt;
+        this.changedAt = loadedAt;
+        loaded.forEach(usage -> record(usage.description(), usage.uses()));
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    long getLoadStartedAt() {
+        return loadStartedAt;
+    }
+
+    //the load query was over before the time - it can't have seen a commit that came after
+    boolean loadedBefore(long time) {
+        return loadedAt - time < 0;
+    }
+
+    void changed(long time) {
+        changedAt = time;
+    }
+
+    boolean changedSince(long time) {
+        return changedAt - time > 0;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    void markStale() {
+        stale = true;
+    }
+
+    //true for exactly one caller once the index is stale
+    boolean claimRebuild() {
+        return stale && rebuilding.compareAndSet(false, true);
+    }
+
+    void releaseRebuild() {
+        rebuilding.set(false);
+    }
+
+    List<DescriptionSuggestionResponse> suggest(String prefix, int limit) {
+        String from = prefix.stripLeading().toLowerCase(Locale.ROOT);
+
+        //bounded min-heap: the range can be every description of the user for a one-letter prefix
+        PriorityQueue<DescriptionSuggestionResponse> top = new PriorityQueue<>(limit + 1, BY_USES.reversed());
+
+        for (DescriptionSuggestionResponse usage : usages.subMap(from, from + Character.MAX_VALUE).values()) {
+            top.offer(usage);
+
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        return top.stream().sorted(BY_USES).toList();
+    }
+
+    //writes after the load, negative to remove; an entry is dropped when it reaches zero
+    void record(String description, long delta) {
+        if (description == null || description.isBlank()) {
+            return;
+        }
+
+        usages.compute(description.strip().toLowerCase(Locale.ROOT), (key, usage) -> {
+            long uses = (usage != null ? usage.uses() : 0) + delta;
+            String spelling = usage != null ? usage.description() : description.strip();
+
+            return uses > 0 ? new DescriptionSuggestionResponse(spelling, uses) : null;
+        });
+    }
+}
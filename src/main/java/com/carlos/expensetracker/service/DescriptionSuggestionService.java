@@ -0,0 +1,12 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.response.DescriptionSuggestionResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DescriptionSuggestionService {
+
+    //most used descriptions starting with the prefix, close matches when none does
+    List<DescriptionSuggestionResponse> suggest(UUID userId, String prefix, int limit);
+}
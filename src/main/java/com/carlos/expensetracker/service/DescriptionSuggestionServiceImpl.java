@@ -0,0 +1,147 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.response.DescriptionSuggestionResponse;
+import com.carlos.expensetracker.event.ExpenseCachesResetEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent.DescriptionChange;
+import com.carlos.expensetracker.exception.BadRequestException;
+import com.carlos.expensetracker.repository.ExpenseDescriptionRepository;
+import com.carlos.expensetracker.repository.ExpenseDescriptionRepository.DescriptionUsage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+//called on almost every keystroke: hot users are answered from memory, without a transaction or a connection
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DescriptionSuggestionServiceImpl implements DescriptionSuggestionService {
+    private final ExpenseDescriptionRepository descriptionRepository;
+
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_PREFIX_LENGTH = 100;
+    //distinct descriptions kept per user - the long tail is left to the trigram lookup
+    private static final int INDEXED_DESCRIPTIONS = 2_000;
+    //shorter texts have too few trigrams to tell a typo from noise
+    private static final int MIN_SIMILAR_LENGTH = 3;
+
+    //idle users are evicted - nothing else drops an index: a stale one answers until its rebuild replaces it
+    private final Cache<UUID, DescriptionIndex> indexes = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    //off the request path; at most one rebuild per index is in flight
+    private Executor rebuildExecutor = task -> Thread.ofVirtual().name("description-index-rebuild").start(task);
+
+    @Override
+    public List<DescriptionSuggestionResponse> suggest(UUID userId, String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_PREFIX_LENGTH) {
+            throw new BadRequestException("Prefix must not exceed " + MAX_PREFIX_LENGTH + " characters");
+        }
+
+        int size = Math.clamp(limit, 1, MAX_SUGGESTIONS);
+        DescriptionIndex index = indexes.get(userId, this::load);
+
+        if (index.claimRebuild()) {
+            rebuildExecutor.execute(() -> rebuild(userId, index));
+        }
+
+        List<DescriptionSuggestionResponse> suggestions = index.suggest(prefix, size);
+
+        //nothing starts with the text (a typo), or a partial index may be missing rarely used descriptions
+        boolean mayHaveMore = suggestions.isEmpty() || (!index.isComplete() && suggestions.size() < size);
+        String text = prefix.strip().toLowerCase(Locale.ROOT);
+
+        if (!mayHaveMore || text.length() < MIN_SIMILAR_LENGTH) {
+            return suggestions;
+        }
+
+        return descriptionRepository.findMostSimilar(userId, text, size).stream()
+                .map(usage -> new DescriptionSuggestionResponse(usage.description(), usage.uses()))
+                .toList();
+    }
+
+    //writes that say how the descriptions moved are patched into a loaded index, anything else marks it stale
+    //compute rather than a lookup: it waits for a load of the same user in flight, so the write is judged
+    //against the index that load produces instead of slipping past it
+    //fallback: writes of other replicas arrive outside a transaction (ExpenseInvalidationBus)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        List<DescriptionChange> changes = event.descriptionChanges();
+
+        if (changes != null && changes.isEmpty()) {
+            return;
+        }
+
+        indexes.asMap().compute(event.userId(), (userId, index) -> {
+            if (index != null) {
+                apply(index, changes, event.publishedAt());
+            }
+            return index;
+        });
+    }
+
+    @EventListener
+    public void onCachesReset(ExpenseCachesResetEvent event) {
+        indexes.invalidateAll();
+    }
+
+    //a load that finished before the write was published can't have seen its commit, so patching doesn't count it twice;
+    //otherwise the load may or may not have, and only a rebuild knows
+    private static void apply(DescriptionIndex index, List<DescriptionChange> changes, long publishedAt) {
+        if (changes == null || changes.size() > INDEXED_DESCRIPTIONS || !index.loadedBefore(publishedAt)) {
+            index.markStale();
+        } else {
+            for (DescriptionChange change : changes) {
+                index.record(change.removed(), -1);
+                index.record(change.added(), 1);
+            }
+        }
+
+        index.changed(System.nanoTime());
+    }
+
+    //replaces only the index it was started for; a write that reached the old one after the rebuild's query
+    //started may be missing from the new one, which is then stale from the start
+    private void rebuild(UUID userId, DescriptionIndex stale) {
+        try {
+            DescriptionIndex fresh = load(userId);
+
+            indexes.asMap().computeIfPresent(userId, (key, current) -> {
+                if (current != stale) {
+                    return current;
+                }
+                if (current.changedSince(fresh.getLoadStartedAt())) {
+                    fresh.markStale();
+                }
+                return fresh;
+            });
+        } catch (RuntimeException ex) {
+            //the stale index keeps answering, the next keystroke tries again
+            log.warn("Failed to rebuild description index for user: {}", userId, ex);
+            stale.releaseRebuild();
+        }
+    }
+
+    private DescriptionIndex load(UUID userId) {
+        long startedAt = System.nanoTime();
+        List<DescriptionUsage> usages = descriptionRepository.findMostUsed(userId, INDEXED_DESCRIPTIONS);
+        log.debug("Loaded {} descriptions for user: {}", usages.size(), userId);
+
+        return new DescriptionIndex(usages, usages.size() < INDEXED_DESCRIPTIONS, startedAt, System.nanoTime());
+    }
+}
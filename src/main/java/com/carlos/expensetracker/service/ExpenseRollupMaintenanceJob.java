@@ -0,0 +1,75 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+//one-time backfill (opt-in at startup) and the nightly rollup consistency check, one user per transaction
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseRollupMaintenanceJob implements ApplicationRunner {
+
+    private static final int USER_BATCH_SIZE = 500;
+
+    private final ExpenseRollupService rollupService;
+    private final UserRepository userRepository;
+
+    @Value("${expense.rollups.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        log.info("Rollup backfill started");
+
+        long cells = forEachUser(rollupService::rebuildUser);
+
+        log.info("Rollup backfill finished ({} cells)", cells);
+    }
+
+    @Scheduled(cron = "${expense.rollups.check-cron:0 30 3 * * *}")
+    public void checkConsistency() {
+        log.info("Rollup consistency check started");
+
+        long repaired = forEachUser(rollupService::checkAndRepair);
+
+        if (repaired > 0) {
+            log.warn("Rollup consistency check repaired {} cells", repaired);
+        } else {
+            log.info("Rollup consistency check finished - no drift");
+        }
+    }
+
+    private long forEachUser(ToLongFunction<UUID> action) {
+        long total = 0;
+        Slice<UUID> userIds = userRepository.findAllIds(PageRequest.of(0, USER_BATCH_SIZE));
+
+        while (true) {
+            for (UUID userId : userIds) {
+                total += action.applyAsLong(userId);
+            }
+
+            if (!userIds.hasNext()) {
+                return total;
+            }
+
+            userIds = userRepository.findAllIds(userIds.nextPageable());
+        }
+    }
+}
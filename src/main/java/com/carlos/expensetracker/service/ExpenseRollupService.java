@@ -0,0 +1,39 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ExpenseRollupService {
+
+    //maintenance - must run inside the transaction that changed the expense
+    void recordCreated(UUID userId, Expense expense);
+
+    void recordCreated(UUID userId, List<Expense> expenses);
+
+    void recordUpdated(
+            UUID userId,
+            LocalDate previousDate,
+            ExpenseCategory previousCategory,
+            BigDecimal previousAmount,
+            LocalDate expenseDate,
+            ExpenseCategory category,
+            BigDecimal amount
+    );
+
+    void recordDeleted(UUID userId, LocalDate expenseDate, ExpenseCategory category);
+
+    //bulk writes - every cell the statement took rows from or moved rows into
+    void recordCellsChanged(UUID userId, Collection<ExpenseDailyRollupId> cells);
+
+    //backfill / repair
+    int rebuildUser(UUID userId);
+
+    long checkAndRepair(UUID userId);
+}
@@ -0,0 +1,166 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.repository.ExpenseDailyRollupRepository;
+import com.carlos.expensetracker.repository.ExpenseRepository;
+import com.carlos.expensetracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseRollupServiceImpl implements ExpenseRollupService {
+
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(UUID userId, Expense expense) {
+        lockUser(userId);
+
+        rollupRepository.addToCell(
+                userId,
+                expense.getExpenseDate(),
+                expense.getCategory().name(),
+                expense.getAmount()
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(UUID userId, List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return;
+        }
+
+        //one upsert per touched cell instead of one per expense
+        Map<ExpenseDailyRollupId, List<BigDecimal>> cells = expenses.stream().collect(Collectors.groupingBy(
+                expense -> new ExpenseDailyRollupId(userId, expense.getExpenseDate(), expense.getCategory()),
+                Collectors.mapping(Expense::getAmount, Collectors.toList())
+        ));
+
+        lockUser(userId);
+
+        cells.forEach((cell, amounts) -> rollupRepository.addAggregateToCell(
+                userId,
+                cell.expenseDate(),
+                cell.category().name(),
+                amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                amounts.size(),
+                amounts.stream().min(BigDecimal::compareTo).orElseThrow(),
+                amounts.stream().max(BigDecimal::compareTo).orElseThrow()
+        ));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(
+            UUID userId,
+            LocalDate previousDate,
+            ExpenseCategory previousCategory,
+            BigDecimal previousAmount,
+            LocalDate expenseDate,
+            ExpenseCategory category,
+            BigDecimal amount
+    ) {
+        boolean sameCell = previousDate.equals(expenseDate) && previousCategory == category;
+
+        if (sameCell && previousAmount.compareTo(amount) == 0) {
+            return; //description only
+        }
+
+        //the recompute reads expenses, so the new values must be in the database first
+        expenseRepository.flush();
+        lockUser(userId);
+
+        if (sameCell) {
+            recomputeCell(userId, previousDate, previousCategory);
+            return;
+        }
+
+        //moved between days or categories
+        recomputeCell(userId, previousDate, previousCategory);
+        rollupRepository.addToCell(userId, expenseDate, category.name(), amount);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(UUID userId, LocalDate expenseDate, ExpenseCategory category) {
+        expenseRepository.flush();
+        lockUser(userId);
+
+        recomputeCell(userId, expenseDate, category);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCellsChanged(UUID userId, Collection<ExpenseDailyRollupId> cells) {
+        if (cells.isEmpty()) {
+            return;
+        }
+
+        expenseRepository.flush();
+        lockUser(userId);
+
+        cells.forEach(cell -> recomputeCell(userId, cell.expenseDate(), cell.category()));
+    }
+
+    @Override
+    @Transactional
+    public int rebuildUser(UUID userId) {
+        lockUser(userId);
+
+        rollupRepository.deleteByUser(userId);
+        int cells = rollupRepository.insertFromExpenses(userId);
+
+        log.debug("Rollups rebuilt for user: {} ({} cells)", userId, cells);
+        return cells;
+    }
+
+    @Override
+    @Transactional
+    public long checkAndRepair(UUID userId) {
+        //one statement reads expenses and rollups from the same snapshot, and committed writes keep them in step,
+        //so the check needs no lock - the repair takes the user row and then the rollup lock, like every writer
+        long inconsistent = rollupRepository.countInconsistentCells(userId);
+
+        if (inconsistent > 0) {
+            log.warn("Rollups out of sync for user: {} ({} cells), rebuilding", userId, inconsistent);
+            userRepository.bumpDataVersion(userId);
+            rebuildUser(userId);
+            //cached statistics were computed from the drifted cells; the expenses themselves didn't change
+            eventPublisher.publishEvent(new ExpensesChangedEvent(userId, List.of()));
+        }
+
+        return inconsistent;
+    }
+
+    private void recomputeCell(UUID userId, LocalDate expenseDate, ExpenseCategory category) {
+        rollupRepository.recomputeCell(userId, expenseDate, category.name());
+        rollupRepository.deleteCellIfEmpty(userId, expenseDate, category.name());
+    }
+
+    //writers of the same user queue here until commit, so a recompute never misses a concurrent delta
+    private void lockUser(UUID userId) {
+        rollupRepository.lockUser(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits());
+    }
+}
@@ -1,11 +1,15 @@
 package com.carlos.expensetracker.service;
 
+import com.carlos.expensetracker.dto.request.BulkDeleteRequest;
+import com.carlos.expensetracker.dto.request.BulkUpdateRequest;
 import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.request.UpdateExpenseRequest;
+import com.carlos.expensetracker.dto.response.BulkOperationResponse;
+import com.carlos.expensetracker.dto.response.CursorPageResponse;
 import com.carlos.expensetracker.dto.response.ExpenseResponse;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.UUID;
@@ -15,7 +19,7 @@ public interface ExpenseService {
 
     List<ExpenseResponse> getAllExpenses(UUID userId);
 
-    Page<ExpenseResponse> getAllExpenses(UUID userId, Pageable pageable);
+    Slice<ExpenseResponse> getAllExpenses(UUID userId, Pageable pageable, boolean includeTotal);
 
     ExpenseResponse getExpenseById(UUID userId, UUID expenseId);
 
@@ -23,9 +27,21 @@ public interface ExpenseService {
 
     void deleteExpense(UUID userId, UUID expenseId);
 
-    Page<ExpenseResponse> getExpensesWithFilter(
+    BulkOperationResponse bulkDelete(UUID userId, BulkDeleteRequest request);
+
+    BulkOperationResponse bulkUpdate(UUID userId, BulkUpdateRequest request);
+
+    Slice<ExpenseResponse> getExpensesWithFilter(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Pageable pageable,
+            boolean includeTotal
+    );
+
+    CursorPageResponse<ExpenseResponse> getExpensesByCursor(
             UUID userId,
             ExpenseFilterRequest filter,
-            Pageable pageable
+            String cursor,
+            int size
     );
 }
@@ -1,28 +1,48 @@
 package com.carlos.expensetracker.service;
 
+import com.carlos.expensetracker.dto.request.BulkDeleteRequest;
+import com.carlos.expensetracker.dto.request.BulkUpdateRequest;
 import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.request.UpdateExpenseRequest;
+import com.carlos.expensetracker.dto.response.BulkOperationResponse;
+import com.carlos.expensetracker.dto.response.CursorPageResponse;
 import com.carlos.expensetracker.dto.response.ExpenseResponse;
 import com.carlos.expensetracker.entity.Expense;
-import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
 import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent.DescriptionChange;
+import com.carlos.expensetracker.exception.BadRequestException;
+import com.carlos.expensetracker.exception.ConflictException;
 import com.carlos.expensetracker.exception.DatabaseException;
 import com.carlos.expensetracker.exception.ResourceNotFoundException;
 import com.carlos.expensetracker.mapper.ExpenseMapper;
+import com.carlos.expensetracker.repository.ExpenseDailyRollupRepository;
 import com.carlos.expensetracker.repository.ExpenseRepository;
+import com.carlos.expensetracker.repository.ExpenseWriteRepository;
+import com.carlos.expensetracker.repository.ExpenseWriteRepository.DeletedExpense;
+import com.carlos.expensetracker.repository.ExpenseWriteRepository.UpdatedExpense;
 import com.carlos.expensetracker.repository.UserRepository;
+import com.carlos.expensetracker.util.ExpenseCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.LongSupplier;
 
 @Slf4j
 @Service
@@ -31,19 +51,30 @@ public class ExpenseServiceImpl implements ExpenseService {
     private final ExpenseRepository expenseRepository;
     private final UserRepository userRepository;
     private final ExpenseMapper expenseMapper;
+    private final ExpenseRollupService expenseRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final ExpenseWriteRepository expenseWriteRepository;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     @Override
     @Transactional
     public ExpenseResponse createExpense(UUID userId, CreateExpenseRequest request) {
         log.info("Creating expense for user: {}", userId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        //the counter bump doubles as the existence check, so the insert needs no user select
+        if (userRepository.adjustExpenseCount(userId, 1) == 0) {
+            throw new ResourceNotFoundException("User not found");
+        }
 
-        Expense expense = expenseMapper.toEntity(request, user);
+        Expense expense = expenseMapper.toEntity(request, userRepository.getReferenceById(userId));
 
         try {
             Expense savedExpense = expenseRepository.save(expense);
+            expenseRollupService.recordCreated(userId, savedExpense);
+            eventPublisher.publishEvent(new ExpensesChangedEvent(
+                    userId, new DescriptionChange(null, savedExpense.getDescription())));
             log.debug("Expense created: {} (amount: {})", savedExpense.getId(), savedExpense.getAmount());
 
             return expenseMapper.toResponse(savedExpense);
@@ -61,19 +92,17 @@ public class ExpenseServiceImpl implements ExpenseService {
     public List<ExpenseResponse> getAllExpenses(UUID userId) {
         log.info("Fetching all expenses for user: {}", userId);
 
-        return expenseRepository.findByUserId(userId)
-                .stream()
-                .map(expenseMapper::toResponse)
-                .toList();
+        return expenseRepository.findResponsesByUserId(userId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<ExpenseResponse> getAllExpenses(UUID userId, Pageable pageable) {
+    public Slice<ExpenseResponse> getAllExpenses(UUID userId, Pageable pageable, boolean includeTotal) {
         log.info("Fetching all expenses for user: {} (page: {})", userId, pageable.getPageNumber());
 
-        return expenseRepository.findByUserId(userId, pageable)
-                .map(expenseMapper::toResponse);
+        Slice<ExpenseResponse> expenses = expenseRepository.findByFilter(userId, ExpenseFilterRequest.empty(), pageable);
+
+        return toResponse(expenses, includeTotal, () -> countAll(userId));
     }
 
     @Override
@@ -81,10 +110,8 @@ public class ExpenseServiceImpl implements ExpenseService {
     public ExpenseResponse getExpenseById(UUID userId, UUID expenseId) {
         log.info("Fetching expense: {} for user: {}", expenseId, userId);
 
-        Expense expense = expenseRepository.findByIdAndUserId(expenseId, userId)
+        return expenseRepository.findResponseByIdAndUserId(expenseId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
-
-        return expenseMapper.toResponse(expense);
     }
 
     @Override
@@ -92,72 +119,209 @@ public class ExpenseServiceImpl implements ExpenseService {
     public ExpenseResponse updateExpense(UUID userId, UUID expenseId, UpdateExpenseRequest request) {
         log.info("Updating expense: {} for user: {}", expenseId, userId);
 
-        Expense expense = expenseRepository.findByIdAndUserId(expenseId, userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
+        UpdatedExpense updated = expenseWriteRepository
+                .updateReturning(userId, expenseId, request, LocalDateTime.now())
+                .orElseThrow(() -> updateRejected(userId, expenseId, request));
+        ExpenseResponse expense = updated.expense();
+
+        //user row before the rollup lock, the order every writer uses
+        userRepository.bumpDataVersion(userId);
+        expenseRollupService.recordUpdated(
+                userId,
+                updated.previousDate(),
+                updated.previousCategory(),
+                updated.previousAmount(),
+                expense.expenseDate(),
+                expense.category(),
+                expense.amount()
+        );
+        eventPublisher.publishEvent(new ExpensesChangedEvent(
+                userId, new DescriptionChange(updated.previousDescription(), expense.description())));
+        log.info("Expense updated: {} (version: {})", expense.id(), expense.version());
+
+        return expense;
+    }
 
-        expenseMapper.updateEntity(expense, request);
+    @Override
+    @Transactional
+    public void deleteExpense(UUID userId, UUID expenseId) {
+        log.info("Deleting expense: {} for user: {}", expenseId, userId);
 
-        Expense updatedExpense = expenseRepository.save(expense);
-        log.info("Expense updated: {}", updatedExpense.getId());
+        DeletedExpense deleted = expenseWriteRepository.deleteReturning(userId, expenseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
 
-        return expenseMapper.toResponse(updatedExpense);
+        //counter row before the rollup lock, the order every writer uses
+        userRepository.adjustExpenseCount(userId, -1);
+        expenseRollupService.recordDeleted(userId, deleted.expenseDate(), deleted.category());
+        eventPublisher.publishEvent(new ExpensesChangedEvent(
+                userId, new DescriptionChange(deleted.description(), null)));
+        log.info("Expense deleted: {}", expenseId);
     }
 
     @Override
     @Transactional
-    public void deleteExpense(UUID userId, UUID expenseId) {
-        log.info("Deleting expense: {} for user: {}", expenseId, userId);
+    public BulkOperationResponse bulkDelete(UUID userId, BulkDeleteRequest request) {
+        log.info("Bulk deleting expenses for user: {} with filters: {}", userId, request.filter());
 
-        if (!expenseRepository.existsByIdAndUserId(expenseId, userId)) {
-            throw new ResourceNotFoundException("Expense not found");
+        requireSelection(request.filter(), request.ids());
+
+        //row locks first, then the counter row, then the rollup lock - the order every writer uses
+        Set<ExpenseDailyRollupId> cells = expenseRepository.lockCellsForDelete(
+                userId, request.filter(), request.ids());
+        int deleted = expenseRepository.deleteByFilter(userId, request.filter(), request.ids());
+
+        if (deleted > 0) {
+            userRepository.adjustExpenseCount(userId, -deleted);
+            afterBulkChange(userId, cells, null);
         }
 
-        expenseRepository.deleteByIdAndUserId(expenseId, userId);
-        log.info("Expense deleted: {}", expenseId);
+        log.info("Bulk delete removed {} expenses for user: {}", deleted, userId);
+        return new BulkOperationResponse(deleted);
+    }
+
+    @Override
+    @Transactional
+    public BulkOperationResponse bulkUpdate(UUID userId, BulkUpdateRequest request) {
+        log.info("Bulk updating expenses for user: {} with filters: {}", userId, request.filter());
+
+        requireSelection(request.filter(), request.ids());
+
+        int shiftDays = request.shiftDays() != null ? request.shiftDays() : 0;
+        LocalDate today = LocalDate.now();
+
+        Set<ExpenseDailyRollupId> cells = expenseRepository.lockCellsForUpdate(
+                userId, request.filter(), request.ids(), shiftDays, today);
+
+        int updated = expenseRepository.updateByFilter(
+                userId,
+                request.filter(),
+                request.ids(),
+                request.category(),
+                shiftDays,
+                LocalDateTime.now(),
+                today
+        );
+
+        if (updated > 0) {
+            userRepository.bumpDataVersion(userId);
+            //the cells the rows left, plus the ones they landed in
+            Set<ExpenseDailyRollupId> touched = new HashSet<>(cells);
+            cells.forEach(cell -> touched.add(new ExpenseDailyRollupId(
+                    userId,
+                    cell.expenseDate().plusDays(shiftDays),
+                    request.category() != null ? request.category() : cell.category()
+            )));
+            afterBulkChange(userId, touched, List.of());
+        }
+
+        log.info("Bulk update changed {} expenses for user: {}", updated, userId);
+        return new BulkOperationResponse(updated);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<ExpenseResponse> getExpensesWithFilter(UUID userId, ExpenseFilterRequest filter, Pageable pageable) {
+    public Slice<ExpenseResponse> getExpensesWithFilter(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            Pageable pageable,
+            boolean includeTotal
+    ) {
         log.info("Fetching expenses for user: {} with filters: {}", userId, filter);
 
         if (filter == null || !filter.hasFilters()) {
-            return expenseRepository.findByUserId(userId, pageable).map(expenseMapper::toResponse);
+            return getAllExpenses(userId, pageable, includeTotal);
         }
 
-        Page<Expense> expenses;
+        Slice<ExpenseResponse> expenses = expenseRepository.findByFilter(userId, filter, pageable);
 
-        LocalDate startDate = filter.getEffectiveStartDate();
-        LocalDate endDate = filter.getEffectiveEndDate();
-        ExpenseCategory category = filter.category();
+        return toResponse(expenses, includeTotal, () -> countMatching(userId, filter));
+    }
 
-        if (category != null && startDate != null && endDate != null) {
-            expenses = expenseRepository.findByUserIdAndCategoryAndExpenseDateBetween(
-                    userId,
-                    category,
-                    startDate,
-                    endDate,
-                    pageable
-            );
-        } else if (category != null) {
-            expenses = expenseRepository.findByUserIdAndCategory(
-                    userId,
-                    category,
-                    pageable
-            );
-        } else if (startDate != null && endDate != null) {
-            expenses = expenseRepository.findByUserIdAndExpenseDateBetween(
-                    userId,
-                    startDate,
-                    endDate,
-                    pageable
-            );
-        } else {
-            //fallback
-            expenses = expenseRepository.findByUserId(userId, pageable);
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ExpenseResponse> getExpensesByCursor(
+            UUID userId,
+            ExpenseFilterRequest filter,
+            String cursor,
+            int size
+    ) {
+        log.info("Fetching expenses for user: {} by cursor with filters: {}", userId, filter);
+
+        int pageSize = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+
+        ExpenseCursor after = cursor == null || cursor.isBlank() ? null : ExpenseCursor.decode(cursor);
+
+        //one extra row tells whether there is a next page, without a count query
+        List<ExpenseResponse> expenses = expenseRepository.findWindowByFilter(userId, filter, after, pageSize + 1);
+
+        boolean hasNext = expenses.size() > pageSize;
+        List<ExpenseResponse> window = hasNext ? expenses.subList(0, pageSize) : expenses;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ExpenseResponse last = window.getLast();
+            nextCursor = new ExpenseCursor(last.expenseDate(), last.id()).encode();
         }
 
+        return new CursorPageResponse<>(
+                window,
+                pageSize,
+                hasNext,
+                nextCursor
+        );
+    }
+
+    //slice by default; with a total it becomes a page, the total read from a counter instead of count(*)
+    private Slice<ExpenseResponse> toResponse(Slice<ExpenseResponse> expenses, boolean includeTotal, LongSupplier total) {
+        if (!includeTotal) {
+            return expenses;
+        }
 
-        return expenses.map(expenseMapper::toResponse);
+        return new PageImpl<>(expenses.getContent(), expenses.getPageable(), total.getAsLong());
+    }
+
+    private long countAll(UUID userId) {
+        return userRepository.findExpenseCount(userId).orElse(0L);
+    }
+
+    //category and date filters are answered by the rollups; anything finer needs a count over expenses
+    private long countMatching(UUID userId, ExpenseFilterRequest filter) {
+        if (filter.hasRowFilters()) {
+            return expenseRepository.countByFilter(userId, filter);
+        }
+
+        Set<ExpenseCategory> categories = filter.getEffectiveCategories();
+
+        return rollupRepository.countExpenses(
+                userId,
+                categories.isEmpty(),
+                categories.isEmpty() ? EnumSet.allOf(ExpenseCategory.class) : categories,
+                filter.getEffectiveStartDate(),
+                filter.getEffectiveEndDate()
+        );
+    }
+
+    //an empty selection would hit every expense of the user - make that explicit instead of accidental
+    private void requireSelection(ExpenseFilterRequest filter, List<UUID> ids) {
+        boolean hasFilters = filter != null && filter.hasFilters();
+
+        if (!hasFilters && (ids == null || ids.isEmpty())) {
+            throw new BadRequestException("Bulk operations need a filter or a list of ids");
+        }
+    }
+
+    //a bulk statement can touch any number of cells, so the rollups are rebuilt rather than patched
+    //descriptionChanges: empty after an update (it never touches descriptions), null after a delete
+    private void afterBulkChange(UUID userId, Set<ExpenseDailyRollupId> cells, List<DescriptionChange> descriptionChanges) {
+        expenseRollupService.recordCellsChanged(userId, cells);
+        eventPublisher.publishEvent(new ExpensesChangedEvent(userId, descriptionChanges));
+    }
+
+    //no row matched - only now is it worth a second query to tell a stale version from a missing expense
+    private RuntimeException updateRejected(UUID userId, UUID expenseId, UpdateExpenseRequest request) {
+        if (request.version() != null && expenseRepository.existsByIdAndUserId(expenseId, userId)) {
+            return new ConflictException("Expense was modified by another request");
+        }
+        return new ResourceNotFoundException("Expense not found");
     }
 }
@@ -2,10 +2,12 @@ package com.carlos.expensetracker.service;
 
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.UUID;
 
 public interface ExportService {
 
-    //Expense csv
-    byte[] exportToCsv(UUID userId, ExpenseFilterRequest filter);
+    //Expense csv - streamed straight to the output, never buffered as a whole
+    void exportToCsv(UUID userId, ExpenseFilterRequest filter, OutputStream output) throws IOException;
 }
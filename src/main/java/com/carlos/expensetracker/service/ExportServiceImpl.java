@@ -2,59 +2,75 @@ package com.carlos.expensetracker.service;
 
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.repository.ExpenseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Iterator;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExportServiceImpl implements ExportService {
 
-    private final ExpenseService expenseService;
+    private static final String CSV_HEADER = "ID;Date;Category;Amount;Description";
+
+    private final ExpenseRepository expenseRepository;
 
     @Override
-    public byte[] exportToCsv(UUID userId, ExpenseFilterRequest filter) {
+    @Transactional(readOnly = true)
+    public void exportToCsv(UUID userId, ExpenseFilterRequest filter, OutputStream output) throws IOException {
         log.info("Exporting expenses to CSV for user: {}", userId);
 
-        //search for all expenses
-        List<ExpenseResponse> expenses = expenseService.getExpensesWithFilter(
-                userId,
-                filter,
-                Pageable.unpaged()
-        ).getContent();
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             PrintWriter writer = new PrintWriter(baos, false, StandardCharsets.UTF_8)) {
-
-            writer.println("ID;Date;Category;Amount;Description");
-
-            for (ExpenseResponse expense : expenses) {
-                writer.printf(
-                        "%s;%s;%s;%s;\"%s\"%n",
-                        expense.id(),
-                        expense.expenseDate(),
-                        expense.category(),
-                        expense.amount().toString().replace(".", ","),
-                        expense.description() != null
-                                ? expense.description().replace("\"", "\"\"")
-                                : ""
-                );
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = 0;
+
+        //projected rows: nothing accumulates in the persistence context, so there is nothing to clear
+        try (Stream<ExpenseResponse> expenses = expenseRepository.streamByFilter(userId, filter)) {
+            Iterator<ExpenseResponse> iterator = expenses.iterator();
+
+            while (iterator.hasNext()) {
+                writeRow(writer, iterator.next());
+                rows++;
+
+                //one fetch worth of rows: push bytes to the client
+                if (rows % ExpenseRepository.EXPORT_FETCH_SIZE == 0) {
+                    writer.flush();
+                }
             }
+        }
+
+        writer.flush();
+        log.debug("CSV export finished for user: {} ({} rows)", userId, rows);
+    }
+
+    private void writeRow(Writer writer, ExpenseResponse expense) throws IOException {
+        writer.write(expense.id().toString());
+        writer.write(';');
+        writer.write(expense.expenseDate().toString());
+        writer.write(';');
+        writer.write(expense.category().name());
+        writer.write(';');
+        writer.write(expense.amount().toString().replace('.', ','));
+        writer.write(";\"");
 
-            writer.flush(); //review this
-            return baos.toByteArray();
-        } catch (Exception e) {
-            log.error("Error exporting CSV", e);
-            throw new RuntimeException("Failed to export CSV", e);
+        if (expense.description() != null) {
+            writer.write(expense.description().replace("\"", "\"\""));
         }
 
+        writer.write("\"\n");
     }
 }
@@ -0,0 +1,13 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.response.CsvImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface ImportService {
+
+    //Expense csv in the export layout - validated into a local file as it streams in, then loaded in one transaction
+    CsvImportResponse importFromCsv(UUID userId, InputStream input) throws IOException;
+}
@@ -0,0 +1,281 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
+import com.carlos.expensetracker.dto.response.CsvImportResponse;
+import com.carlos.expensetracker.dto.response.CsvRowError;
+import com.carlos.expensetracker.entity.ExpenseDailyRollupId;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent.DescriptionChange;
+import com.carlos.expensetracker.repository.ExpenseImportRepository;
+import com.carlos.expensetracker.repository.ExpenseImportRepository.MergedGroup;
+import com.carlos.expensetracker.repository.UserRepository;
+import com.carlos.expensetracker.util.CsvRecordReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportServiceImpl implements ImportService {
+
+    private static final char CSV_DELIMITER = ';';
+    private static final int CSV_COLUMNS = 5;
+
+    //caps of one record while it's parsed: the longest valid field is a 500-character description,
+    //and an extra column or two only earns a row error - anything past these fails the whole upload
+    private static final int MAX_FIELD_LENGTH = 1024;
+    private static final int MAX_FIELDS = 16;
+
+    //bytes written to the staged file and handed to COPY per write, and cap on the detailed errors sent back
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ExpenseImportRepository importRepository;
+    private final UserRepository userRepository;
+    private final ExpenseRollupService expenseRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public CsvImportResponse importFromCsv(UUID userId, InputStream input) throws IOException {
+        log.info("Importing expenses from CSV for user: {}", userId);
+
+        //the upload is read at the client's pace, so it's validated into a local file first
+        //and the pooled connection is only taken for the COPY and the merge
+        Path staged = Files.createTempFile("expense-import-", ".copy");
+
+        try {
+            StagedUpload upload = stage(input, staged);
+            List<MergedGroup> groups = upload.accepted() > 0 ? load(userId, staged) : List.of();
+            int imported = groups.stream().mapToInt(MergedGroup::imported).sum();
+
+            log.info("CSV import finished for user: {} (imported: {}, skipped: {}, rejected: {})",
+                    userId, imported, upload.accepted() - imported, upload.rejected());
+
+            return new CsvImportResponse(imported, upload.accepted() - imported, upload.rejected(), upload.errors());
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    //parses and validates the upload into COPY text format - no transaction, no connection
+    private StagedUpload stage(InputStream input, Path staged) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)),
+                CSV_DELIMITER,
+                MAX_FIELD_LENGTH,
+                MAX_FIELDS
+        );
+
+        List<CsvRowError> errors = new ArrayList<>();
+        long rejected = 0;
+        long accepted = 0;
+
+        StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+
+        try (Writer out = Files.newBufferedWriter(staged, StandardCharsets.UTF_8)) {
+            List<String> record;
+
+            while ((record = csv.next()) != null) {
+                if (csv.getRecordLine() == 1 && "ID".equalsIgnoreCase(record.getFirst().strip())) {
+                    continue; //header
+                }
+
+                String error = appendRow(chunk, record);
+
+                if (error != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new CsvRowError(csv.getRecordLine(), error));
+                    }
+                    continue;
+                }
+
+                accepted++;
+
+                if (chunk.length() >= COPY_CHUNK_SIZE) {
+                    out.append(chunk);
+                    chunk.setLength(0);
+                }
+            }
+
+            out.append(chunk);
+        }
+
+        return new StagedUpload(accepted, rejected, errors);
+    }
+
+    //COPY from the local file, merge, and patch the rollup cells and descriptions the merge reported
+    private List<MergedGroup> load(UUID userId, Path staged) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                importRepository.createStaging();
+                copy(staged);
+
+                List<MergedGroup> groups = importRepository.mergeStaging(userId, LocalDateTime.now());
+
+                if (!groups.isEmpty()) {
+                    userRepository.adjustExpenseCount(userId, groups.stream().mapToInt(MergedGroup::imported).sum());
+                    expenseRollupService.recordCellsChanged(userId, groups.stream()
+                            .map(group -> new ExpenseDailyRollupId(userId, group.expenseDate(), group.category()))
+                            .collect(Collectors.toSet()));
+                    eventPublisher.publishEvent(new ExpensesChangedEvent(userId, groups.stream()
+                            .flatMap(group -> Collections.nCopies(
+                                    group.imported(), new DescriptionChange(null, group.description())).stream())
+                            .toList()));
+                }
+
+                return groups;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private void copy(Path staged) {
+        CopyIn copy = importRepository.openCopy();
+
+        try (InputStream in = Files.newInputStream(staged)) {
+            byte[] buffer = new byte[COPY_CHUNK_SIZE];
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                copy.writeToCopy(buffer, 0, read);
+            }
+
+            copy.endCopy();
+        } catch (SQLException ex) {
+            throw new UncheckedIOException(new IOException("Failed to stream CSV rows to the database", ex));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            cancelIfActive(copy);
+        }
+    }
+
+    //validates one record and appends it in COPY text format; returns the error instead when invalid
+    private String appendRow(StringBuilder chunk, List<String> record) {
+        if (record.size() != CSV_COLUMNS) {
+            return "Expected " + CSV_COLUMNS + " columns but found " + record.size();
+        }
+
+        UUID id;
+        LocalDate expenseDate;
+        ExpenseCategory category;
+        BigDecimal amount;
+
+        try {
+            String rawId = record.get(0).strip();
+            id = rawId.isEmpty() ? null : UUID.fromString(rawId);
+        } catch (IllegalArgumentException ex) {
+            return "Invalid id";
+        }
+
+        try {
+            expenseDate = LocalDate.parse(record.get(1).strip());
+        } catch (DateTimeParseException ex) {
+            return "Invalid date, expected yyyy-MM-dd";
+        }
+
+        try {
+            category = ExpenseCategory.valueOf(record.get(2).strip().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return "Unknown category";
+        }
+
+        //the export writes a decimal comma
+        try {
+            amount = new BigDecimal(record.get(3).strip().replace(',', '.'));
+        } catch (NumberFormatException ex) {
+            return "Invalid amount";
+        }
+
+        String description = record.get(4).isEmpty() ? null : record.get(4);
+
+        //same rules as POST /api/expenses
+        Set<ConstraintViolation<CreateExpenseRequest>> violations = validator.validate(
+                new CreateExpenseRequest(amount, category, description, expenseDate)
+        );
+
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+
+        appendCopyValue(chunk, id != null ? id.toString() : null);
+        chunk.append('\t');
+        appendCopyValue(chunk, expenseDate.toString());
+        chunk.append('\t');
+        appendCopyValue(chunk, category.name());
+        chunk.append('\t');
+        appendCopyValue(chunk, amount.toPlainString());
+        chunk.append('\t');
+        appendCopyValue(chunk, description);
+        chunk.append('\n');
+
+        return null;
+    }
+
+    private void appendCopyValue(StringBuilder chunk, String value) {
+        if (value == null) {
+            chunk.append("\\N");
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '\\' -> chunk.append("\\\\");
+                case '\t' -> chunk.append("\\t");
+                case '\n' -> chunk.append("\\n");
+                case '\r' -> chunk.append("\\r");
+                default -> chunk.append(c);
+            }
+        }
+    }
+
+    //leaves the connection usable for the rollback when the upload fails halfway
+    private void cancelIfActive(CopyIn copy) {
+        if (!copy.isActive()) {
+            return;
+        }
+
+        try {
+            copy.cancelCopy();
+        } catch (SQLException ex) {
+            log.warn("Failed to cancel CSV import copy", ex);
+        }
+    }
+
+    private record StagedUpload(long accepted, long rejected, List<CsvRowError> errors) {
+    }
+}
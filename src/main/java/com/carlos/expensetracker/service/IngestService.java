@@ -0,0 +1,12 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
+import com.carlos.expensetracker.dto.response.IngestAcceptedResponse;
+
+import java.util.UUID;
+
+public interface IngestService {
+
+    //durably queued, written to expenses later by the journal drainer
+    IngestAcceptedResponse accept(UUID userId, CreateExpenseRequest request);
+}
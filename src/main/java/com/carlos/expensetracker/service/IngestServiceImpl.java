@@ -0,0 +1,45 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.request.CreateExpenseRequest;
+import com.carlos.expensetracker.dto.response.IngestAcceptedResponse;
+import com.carlos.expensetracker.exception.DatabaseException;
+import com.carlos.expensetracker.ingest.ExpenseJournal;
+import com.carlos.expensetracker.ingest.JournalEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestServiceImpl implements IngestService {
+
+    private final ExpenseJournal journal;
+
+    @Override
+    public IngestAcceptedResponse accept(UUID userId, CreateExpenseRequest request) {
+        //the id is fixed here, which is what makes a replay idempotent
+        JournalEntry entry = new JournalEntry(
+                UUID.randomUUID(),
+                userId,
+                request.amount(),
+                request.category(),
+                request.description(),
+                request.expenseDate(),
+                System.currentTimeMillis()
+        );
+
+        try {
+            journal.append(entry);
+        } catch (UncheckedIOException ex) {
+            log.warn("Failed to journal expense for user: {}", userId, ex);
+            throw new DatabaseException("Failed to queue expense", ex);
+        }
+
+        log.debug("Expense journaled: {} for user: {}", entry.id(), userId);
+        return new IngestAcceptedResponse(entry.id());
+    }
+}
@@ -3,6 +3,8 @@ package com.carlos.expensetracker.service;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.response.CategorySummaryResponse;
 import com.carlos.expensetracker.dto.response.ExpenseSummaryResponse;
+import com.carlos.expensetracker.dto.response.TrendBucketResponse;
+import com.carlos.expensetracker.entity.enums.TrendGranularity;
 
 import java.util.List;
 import java.util.UUID;
@@ -12,4 +14,6 @@ public interface StatisticsService {
     ExpenseSummaryResponse getSummary(UUID userId, ExpenseFilterRequest filter);
 
     List<CategorySummaryResponse> getByCategory(UUID userId, ExpenseFilterRequest filter);
+
+    List<TrendBucketResponse> getTrend(UUID userId, TrendGranularity granularity, ExpenseFilterRequest filter);
 }
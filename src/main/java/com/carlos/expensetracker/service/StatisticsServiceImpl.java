@@ -3,30 +3,88 @@ package com.carlos.expensetracker.service;
 import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
 import com.carlos.expensetracker.dto.response.CategorySummaryResponse;
 import com.carlos.expensetracker.dto.response.ExpenseSummaryResponse;
+import com.carlos.expensetracker.dto.response.TrendBucketResponse;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
 import com.carlos.expensetracker.entity.enums.FilterPeriod;
-import com.carlos.expensetracker.repository.ExpenseRepository;
+import com.carlos.expensetracker.entity.enums.TrendGranularity;
+import com.carlos.expensetracker.event.ExpenseCachesResetEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.exception.BadRequestException;
+import com.carlos.expensetracker.repository.ExpenseDailyRollupRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatisticsServiceImpl implements StatisticsService{
-    private final ExpenseRepository expenseRepository;
+    //reads from the daily rollups - cost follows the number of days, not the number of expenses
+    private final ExpenseDailyRollupRepository rollupRepository;
 
+    private static final int DEFAULT_TREND_BUCKETS = 12;
+    private static final int MAX_TREND_BUCKETS = 1000;
 
+    private final MeterRegistry meterRegistry;
+
+    //closed (past) trend buckets, one entry per bucket so the bound is on buckets, not users
+    //they only change through a write, and the key carries the user's generation like the statistics below
+    private final Cache<ClosedBucketKey, TrendBucketResponse> closedTrendBuckets = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .recordStats()
+            .build();
+
+    //summary and category breakdown, read-through - repeated dashboard loads never reach the database
+    //the key carries the user's generation, so a write orphans every entry of that user at once;
+    //the ttl only bounds how long orphans take up room
+    private final Cache<StatisticsKey, Object> statistics = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(Duration.ofMinutes(15))
+            .recordStats()
+            .build();
+
+    //bumped after every committed write of the user, to a value never handed out before;
+    //an evicted user restarts at the current sequence, which no older entry of theirs can carry
+    private final AtomicLong generationSequence = new AtomicLong();
+    private final Cache<UUID, Long> generations = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    //exposed as cache.gets / cache.puts / cache.evictions under /actuator/metrics
+    @PostConstruct
+    void registerCacheMetrics() {
+        CaffeineCacheMetrics.monitor(meterRegistry, statistics, "statistics");
+        CaffeineCacheMetrics.monitor(meterRegistry, closedTrendBuckets, "statistics.trend");
+    }
+
+    //no transaction: a hit must not take a connection, and a miss is a single statement
     @Override
-    @Transactional(readOnly = true)
     public ExpenseSummaryResponse getSummary(UUID userId, ExpenseFilterRequest filter) {
         log.info("Calculating summary for user: {}", userId);
+        requireRollupFilter(filter);
 
         //Simply with a method
         LocalDate startDate = filter != null && filter.getEffectiveStartDate() != null
@@ -37,13 +95,15 @@ public class StatisticsServiceImpl implements StatisticsService{
                 ? filter.getEffectiveEndDate()
                 : LocalDate.now();
 
-        return expenseRepository.calculateSummary(userId, startDate, endDate);
+        return cached(new StatisticsKey(userId, generation(userId), Endpoint.SUMMARY, startDate, endDate),
+                () -> rollupRepository.calculateSummary(userId, startDate, endDate));
     }
 
+    //no transaction: a hit must not take a connection, and a miss is a single statement
     @Override
-    @Transactional(readOnly = true)
     public List<CategorySummaryResponse> getByCategory(UUID userId, ExpenseFilterRequest filter) {
         log.info("Calculating category breakdown for user: {}", userId);
+        requireRollupFilter(filter);
 
         LocalDate startDate = filter != null && filter.getEffectiveStartDate() != null
                 ? filter.getEffectiveStartDate()
@@ -53,11 +113,11 @@ public class StatisticsServiceImpl implements StatisticsService{
                 ? filter.getEffectiveEndDate()
                 : LocalDate.now();
 
-        List<CategorySummaryResponse> categories = expenseRepository.calculateByCategory(
-                userId, startDate, endDate
-        );
-
+        return cached(new StatisticsKey(userId, generation(userId), Endpoint.BY_CATEGORY, startDate, endDate),
+                () -> withPercentages(rollupRepository.calculateByCategory(userId, startDate, endDate)));
+    }
 
+    private List<CategorySummaryResponse> withPercentages(List<CategorySummaryResponse> categories) {
         BigDecimal total = categories.stream()
                 .map(CategorySummaryResponse::amount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -81,4 +141,166 @@ public class StatisticsServiceImpl implements StatisticsService{
                 })
                 .toList();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrendBucketResponse> getTrend(UUID userId, TrendGranularity granularity, ExpenseFilterRequest filter) {
+        log.info("Calculating {} trend for user: {}", granularity, userId);
+        requireRollupFilter(filter);
+
+        LocalDate today = LocalDate.now();
+
+        LocalDate endDate = filter != null && filter.getEffectiveEndDate() != null
+                ? filter.getEffectiveEndDate()
+                : today;
+
+        LocalDate startDate = filter != null && filter.getEffectiveStartDate() != null
+                ? filter.getEffectiveStartDate()
+                : granularity.truncate(endDate).minus(DEFAULT_TREND_BUCKETS - 1, granularity.getChronoUnit());
+
+        ExpenseCategory category = filter != null
+                ? filter.getEffectiveCategories().stream().findFirst().orElse(null)
+                : null;
+
+        //whole buckets only, so every closed bucket is complete and cacheable
+        LocalDate firstBucket = granularity.truncate(startDate);
+        LocalDate lastBucket = granularity.truncate(endDate);
+        LocalDate openBucket = granularity.truncate(today);
+
+        List<LocalDate> buckets = new ArrayList<>();
+        for (LocalDate bucket = firstBucket; !bucket.isAfter(lastBucket); bucket = granularity.next(bucket)) {
+            if (buckets.size() == MAX_TREND_BUCKETS) {
+                throw new BadRequestException("Trend range exceeds " + MAX_TREND_BUCKETS + " buckets");
+            }
+            buckets.add(bucket);
+        }
+
+        //read before the query, like the statistics keys: a write committing meanwhile orphans what is stored
+        long generation = generation(userId);
+        Function<LocalDate, ClosedBucketKey> closedKey =
+                bucket -> new ClosedBucketKey(userId, generation, granularity, category, bucket);
+        Map<LocalDate, TrendBucketResponse> closed = new HashMap<>();
+
+        buckets.stream()
+                .filter(bucket -> bucket.isBefore(openBucket))
+                .forEach(bucket -> {
+                    TrendBucketResponse hit = closedTrendBuckets.getIfPresent(closedKey.apply(bucket));
+                    if (hit != null) {
+                        closed.put(bucket, hit);
+                    }
+                });
+
+        boolean closedMissing = buckets.stream()
+                .anyMatch(bucket -> bucket.isBefore(openBucket) && !closed.containsKey(bucket));
+
+        if (closedMissing) {
+            LocalDate closedEnd = lastBucket.isBefore(openBucket)
+                    ? granularity.periodEnd(lastBucket)
+                    : openBucket.minusDays(1);
+
+            Map<LocalDate, TrendBucketResponse> fetched = queryTrend(userId, granularity, category, firstBucket, closedEnd);
+
+            buckets.stream()
+                    .filter(bucket -> bucket.isBefore(openBucket))
+                    .forEach(bucket -> {
+                        TrendBucketResponse response = fetched.getOrDefault(bucket, emptyBucket(granularity, bucket));
+                        closed.put(bucket, response);
+                        closedTrendBuckets.put(closedKey.apply(bucket), response);
+                    });
+        }
+
+        //the still-open bucket is the only thing computed on a warm cache
+        Map<LocalDate, TrendBucketResponse> open = lastBucket.isBefore(openBucket)
+                ? Map.of()
+                : queryTrend(userId, granularity, category, openBucket, granularity.periodEnd(lastBucket));
+
+        return buckets.stream()
+                .map(bucket -> bucket.isBefore(openBucket)
+                        ? closed.get(bucket)
+                        : open.getOrDefault(bucket, emptyBucket(granularity, bucket)))
+                .toList();
+    }
+
+    //statistics read the daily rollups, which only know category and day
+    private void requireRollupFilter(ExpenseFilterRequest filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.hasRowFilters()) {
+            throw new BadRequestException("Statistics can't be filtered by amount or description");
+        }
+        if (filter.getEffectiveCategories().size() > 1) {
+            throw new BadRequestException("Statistics accept a single category");
+        }
+    }
+
+    //fallback: writes of other replicas arrive outside a transaction (ExpenseInvalidationBus)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        generations.put(event.userId(), generationSequence.incrementAndGet());
+    }
+
+    //invalidations may have been missed: no generation handed out before this point is trusted again
+    @EventListener
+    public void onCachesReset(ExpenseCachesResetEvent event) {
+        generationSequence.incrementAndGet();
+        generations.invalidateAll();
+        statistics.invalidateAll();
+        closedTrendBuckets.invalidateAll();
+    }
+
+    //read before the query: a write committing meanwhile bumps it, so a stale result is stored under a dead key
+    private long generation(UUID userId) {
+        return generations.get(userId, id -> generationSequence.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(StatisticsKey key, Supplier<T> query) {
+        return (T) statistics.get(key, k -> query.get());
+    }
+
+    private Map<LocalDate, TrendBucketResponse> queryTrend(
+            UUID userId,
+            TrendGranularity granularity,
+            ExpenseCategory category,
+            LocalDate startDate,
+            LocalDate endDate
+    ) {
+        Map<LocalDate, TrendBucketResponse> buckets = new HashMap<>();
+
+        rollupRepository.calculateTrend(
+                userId,
+                granularity.getUnit(),
+                category != null ? category.name() : null,
+                startDate,
+                endDate
+        ).forEach(view -> buckets.put(view.getPeriodStart(), new TrendBucketResponse(
+                view.getPeriodStart(),
+                granularity.periodEnd(view.getPeriodStart()),
+                view.getTotalAmount(),
+                view.getCount()
+        )));
+
+        return buckets;
+    }
+
+    private TrendBucketResponse emptyBucket(TrendGranularity granularity, LocalDate periodStart) {
+        return new TrendBucketResponse(periodStart, granularity.periodEnd(periodStart), BigDecimal.ZERO, 0L);
+    }
+
+    private enum Endpoint {
+        SUMMARY, BY_CATEGORY
+    }
+
+    private record StatisticsKey(UUID userId, long generation, Endpoint endpoint, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record ClosedBucketKey(
+            UUID userId,
+            long generation,
+            TrendGranularity granularity,
+            ExpenseCategory category,
+            LocalDate periodStart
+    ) {
+    }
 }
@@ -0,0 +1,134 @@
+package com.carlos.expensetracker.util;
+
+import com.carlos.expensetracker.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+//pull parser for the export layout: ';' separated, '"' quoted fields with "" escapes,
+//quoted fields may span lines - one record in memory at a time, bounded by maxFieldLength and maxFields
+//(an unterminated quote or a line without delimiters fails there instead of reading the rest of the upload)
+public class CsvRecordReader {
+
+    private static final char QUOTE = '"';
+
+    private final Reader reader;
+    private final char delimiter;
+    private final int maxFieldLength;
+    private final int maxFields;
+    private final StringBuilder field = new StringBuilder();
+
+    private int pending = -2; //-2 = nothing read ahead
+    private long line = 1;
+    private long recordLine;
+
+    public CsvRecordReader(Reader reader, char delimiter, int maxFieldLength, int maxFields) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.maxFieldLength = maxFieldLength;
+        this.maxFields = maxFields;
+    }
+
+    //line number where the last returned record started
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    //next record, or null at the end of the input
+    public List<String> next() throws IOException {
+        int c = read();
+
+        //blank lines between records are ignored
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    addField(fields); //unterminated quote - keep what was read
+                    return fields;
+                }
+                if (c == QUOTE) {
+                    int following = read();
+
+                    if (following == QUOTE) {
+                        append(QUOTE);
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == delimiter) {
+                addField(fields);
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                addField(fields);
+                return fields;
+            } else if (c == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else {
+                append((char) c);
+            }
+
+            c = read();
+        }
+    }
+
+    private void append(char c) {
+        if (field.length() == maxFieldLength) {
+            throw new BadRequestException("Line " + recordLine + ": field longer than " + maxFieldLength + " characters");
+        }
+        field.append(c);
+    }
+
+    private void addField(List<String> fields) {
+        if (fields.size() == maxFields) {
+            throw new BadRequestException("Line " + recordLine + ": more than " + maxFields + " fields");
+        }
+        fields.add(field.toString());
+    }
+
+    private int read() throws IOException {
+        int c;
+
+        if (pending != -2) {
+            c = pending;
+            pending = -2;
+        } else {
+            c = reader.read();
+        }
+
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c == '\n') {
+            line--;
+        }
+        pending = c;
+    }
+}
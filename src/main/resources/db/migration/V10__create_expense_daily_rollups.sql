@@ -0,0 +1,21 @@
+-- per (user, day, category) aggregates kept in sync with expenses by the application
+CREATE TABLE expense_daily_rollups(
+    user_id UUID NOT NULL,
+    expense_date DATE NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    total_amount DECIMAL(15,2) NOT NULL,
+    expense_count BIGINT NOT NULL,
+    min_amount DECIMAL(10,2) NOT NULL,
+    max_amount DECIMAL(10,2) NOT NULL,
+
+    CONSTRAINT pk_expense_daily_rollups
+        PRIMARY KEY (user_id, expense_date, category),
+
+    CONSTRAINT fk_expense_daily_rollups_user
+        FOREIGN KEY (user_id)
+        REFERENCES users(id)
+        ON DELETE CASCADE,
+
+    CONSTRAINT chk_expense_daily_rollups_count_positive
+        CHECK (expense_count > 0)
+);
@@ -0,0 +1,6 @@
+-- keyset pagination seeks on (expense_date, id) per user
+CREATE INDEX idx_expenses_user_date_id
+    ON expenses(user_id, expense_date DESC, id DESC);
+
+-- superseded by the index above (same leading columns)
+DROP INDEX IF EXISTS idx_expenses_user_date;
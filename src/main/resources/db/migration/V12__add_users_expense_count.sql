@@ -0,0 +1,8 @@
+-- per-user expense counter, so paginated totals never need a count(*) over expenses
+ALTER TABLE users
+ADD COLUMN expense_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET expense_count = (
+    SELECT COUNT(*) FROM expenses e WHERE e.user_id = u.id
+);
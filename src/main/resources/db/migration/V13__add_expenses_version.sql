@@ -0,0 +1,3 @@
+-- optimistic locking for the single-statement update path
+ALTER TABLE expenses
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
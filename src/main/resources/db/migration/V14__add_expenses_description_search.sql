@@ -0,0 +1,10 @@
+-- full-text search over descriptions
+-- 'simple' config: descriptions are short, multilingual and mostly names (no stemming, no stop words)
+ALTER TABLE expenses
+ADD COLUMN description_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(description, ''))) STORED;
+
+-- btree_gin lets user_id live in the same GIN index, so a search only touches that user's postings
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX idx_expenses_description_tsv ON expenses USING GIN (user_id, description_tsv);
@@ -0,0 +1,5 @@
+-- description autocomplete: prefix and typo-tolerant (word similarity) lookups
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- user_id first (btree_gin, V14) so a lookup only touches that user's trigrams
+CREATE INDEX idx_expenses_description_trgm ON expenses USING GIN (user_id, lower(description) gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- bumped by every expense write of the user; conditional GETs derive their ETags from it
+ALTER TABLE users
+ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
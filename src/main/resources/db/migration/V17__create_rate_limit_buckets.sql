@@ -0,0 +1,11 @@
+-- shared rate-limit buckets (rate-limit.store: postgres): serialized bucket4j state per user,
+-- locked with SELECT ... FOR UPDATE for every synchronization
+CREATE TABLE rate_limit_buckets(
+    id VARCHAR(255) PRIMARY KEY,
+    state BYTEA,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- idle buckets are deleted periodically
+CREATE INDEX idx_rate_limit_buckets_updated_at
+    ON rate_limit_buckets(updated_at);
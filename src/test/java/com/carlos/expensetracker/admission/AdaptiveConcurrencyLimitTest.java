@@ -0,0 +1,130 @@
+package com.carlos.expensetracker.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    @DisplayName("Should reject once the limit is in flight")
+    void testRejectsAtLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 20, 0.9, 2.0);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.cancel();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should grow while healthy and back off while the pool is saturated")
+    void testAdditiveIncreaseMultiplicativeDecrease() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, 0.5, 2.0);
+        AdaptiveConcurrencyLimit.Latency latency = new AdaptiveConcurrencyLimit.Latency();
+
+        //a busy limit grows by one per healthy request, up to the maximum
+        for (int i = 0; i < 30; i++) {
+            fill(limit);
+            limit.release(latency, 50 * MILLIS, false);
+            drain(limit);
+        }
+        assertThat(limit.getLimit()).isEqualTo(20);
+
+        //halved by each request that ends with waiters on the pool, down to the minimum
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(latency, 50 * MILLIS, true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should grow back from a limit of 1 once the pool is healthy again")
+    void testRecoversFromMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 20, 0.5, 2.0);
+        AdaptiveConcurrencyLimit.Latency latency = new AdaptiveConcurrencyLimit.Latency();
+
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(latency, 50 * MILLIS, true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(1);
+
+        //one request at a time, the whole (single) slot in use
+        for (int i = 0; i < 5; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(latency, 50 * MILLIS, false);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(1);
+
+        for (int i = 0; i < 30; i++) {
+            fill(limit);
+            limit.release(latency, 50 * MILLIS, false);
+            drain(limit);
+        }
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should back off when an endpoint's recent latency drifts above its usual")
+    void testLatencyBackoff() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 20, 0.9, 2.0);
+        AdaptiveConcurrencyLimit.Latency latency = new AdaptiveConcurrencyLimit.Latency();
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(latency, 20 * MILLIS, false);
+        }
+        int healthy = limit.getLimit();
+
+        //ten times slower, pool not (yet) queueing
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(latency, 200 * MILLIS, false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(healthy);
+    }
+
+    @Test
+    @DisplayName("Should not take a slow endpoint mixed with a fast one for a slowdown")
+    void testLatencyPerEndpoint() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 20, 0.9, 2.0);
+        AdaptiveConcurrencyLimit.Latency statistics = new AdaptiveConcurrencyLimit.Latency();
+        AdaptiveConcurrencyLimit.Latency export = new AdaptiveConcurrencyLimit.Latency();
+
+        for (int i = 0; i < 200; i++) {
+            fill(limit);
+            limit.release(statistics, MILLIS / 2, false);
+            drain(limit);
+        }
+
+        //a run of exports, each as slow as usual for an export
+        for (int i = 0; i < 20; i++) {
+            fill(limit);
+            limit.release(export, 3_000 * MILLIS, false);
+            drain(limit);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    private static void fill(AdaptiveConcurrencyLimit limit) {
+        while (limit.tryAcquire()) {
+        }
+    }
+
+    private static void drain(AdaptiveConcurrencyLimit limit) {
+        while (limit.getInFlight() > 0) {
+            limit.cancel();
+        }
+    }
+}
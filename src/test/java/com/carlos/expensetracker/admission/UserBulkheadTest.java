@@ -0,0 +1,114 @@
+package com.carlos.expensetracker.admission;
+
+import com.carlos.expensetracker.exception.TooManyConcurrentRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UserBulkheadTest {
+
+    private static UserBulkhead bulkhead(int maxConcurrent, int queueSize, Duration maxWait) {
+        return new UserBulkhead(new SimpleMeterRegistry(), true, maxConcurrent, queueSize, maxWait);
+    }
+
+    @Test
+    @DisplayName("Should reject past the permits when there is no queue, per user")
+    void testRejectsWithoutQueue() {
+        UserBulkhead bulkhead = bulkhead(2, 0, Duration.ofMillis(100));
+
+        UserBulkhead.Permits first = bulkhead.acquire("user1");
+        bulkhead.acquire("user1");
+
+        assertThatThrownBy(() -> bulkhead.acquire("user1"))
+                .isInstanceOf(TooManyConcurrentRequestsException.class);
+
+        //other users have their own permits
+        assertThat(bulkhead.acquire("user2")).isNotNull();
+
+        bulkhead.release(first);
+        assertThat(bulkhead.acquire("user1")).isNotNull();
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Should let queued requests through as permits are released, and reject past the queue")
+    void testBoundedQueue() throws Exception {
+        UserBulkhead bulkhead = bulkhead(2, 2, Duration.ofSeconds(5));
+        String userId = "busy";
+
+        UserBulkhead.Permits first = bulkhead.acquire(userId);
+        UserBulkhead.Permits second = bulkhead.acquire(userId);
+
+        AtomicInteger admitted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            List<Future<?>> queued = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                queued.add(executor.submit(() -> {
+                    bulkhead.release(bulkhead.acquire(userId));
+                    admitted.incrementAndGet();
+                }));
+            }
+
+            //until both are queued, a third could still take a queue slot
+            while (bulkhead.queueLength(userId) < 2) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> bulkhead.acquire(userId))
+                    .isInstanceOf(TooManyConcurrentRequestsException.class);
+
+            bulkhead.release(first);
+            bulkhead.release(second);
+
+            for (Future<?> future : queued) {
+                future.get();
+            }
+        }
+
+        assertThat(admitted).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a queued request when the wait runs out")
+    void testWaitTimeout() {
+        UserBulkhead bulkhead = bulkhead(1, 1, Duration.ofMillis(50));
+
+        bulkhead.acquire("slow");
+
+        assertThatThrownBy(() -> bulkhead.acquire("slow"))
+                .isInstanceOf(TooManyConcurrentRequestsException.class);
+    }
+
+    @Test
+    @DisplayName("Should drop users idle for a whole cleanup pass, and keep the busy ones")
+    void testEvictIdleUsers() {
+        UserBulkhead bulkhead = bulkhead(2, 0, Duration.ofMillis(100));
+
+        bulkhead.release(bulkhead.acquire("idle"));
+        bulkhead.acquire("busy");
+
+        bulkhead.evictIdleUsers(); //marks
+        assertThat(bulkhead.users()).isEqualTo(2);
+
+        bulkhead.evictIdleUsers(); //sweeps
+        assertThat(bulkhead.users()).isEqualTo(1);
+
+        //the busy user's permit is still counted
+        bulkhead.acquire("busy");
+        assertThatThrownBy(() -> bulkhead.acquire("busy"))
+                .isInstanceOf(TooManyConcurrentRequestsException.class);
+    }
+}
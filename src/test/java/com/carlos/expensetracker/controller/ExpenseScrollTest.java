@@ -0,0 +1,152 @@
+package com.carlos.expensetracker.controller;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import com.carlos.expensetracker.repository.ExpenseRepository;
+import com.carlos.expensetracker.repository.UserRepository;
+import com.carlos.expensetracker.security.CustomUserDetails;
+import com.carlos.expensetracker.security.JwtTokenProvider;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//keyset pagination end to end: the cursor leaves the server and comes back, the order has ties on expense_date
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExpenseScrollTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private MockMvc mockMvc;
+    private String token;
+    private List<String> expected;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        String name = "scroll-" + UUID.randomUUID();
+        User user = userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("x")
+                .role(UserRole.USER)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        CustomUserDetails details = new CustomUserDetails(user);
+        token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+
+        //three on one day, two on the next, one alone: page boundaries fall inside a day
+        List<Expense> saved = new ArrayList<>();
+        for (int days : new int[]{0, 0, 0, 1, 1, 2}) {
+            saved.add(expenseRepository.save(Expense.builder()
+                    .user(user)
+                    .amount(new BigDecimal("10.00"))
+                    .category(ExpenseCategory.GROCERIES)
+                    .expenseDate(DAY.minusDays(days))
+                    .build()));
+        }
+
+        //the database orders uuids by their unsigned bytes, which is their text order - UUID.compareTo is signed
+        expected = saved.stream()
+                .sorted(Comparator.comparing(Expense::getExpenseDate)
+                        .thenComparing(expense -> expense.getId().toString())
+                        .reversed())
+                .map(expense -> expense.getId().toString())
+                .toList();
+    }
+
+    private MockHttpServletRequestBuilder scroll(int size) {
+        return get("/api/expenses/scroll")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .param("size", String.valueOf(size));
+    }
+
+    //follows nextCursor until hasNext is false, checking every page on the way
+    private List<String> walk(int size) throws Exception {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        boolean hasNext;
+
+        do {
+            MockHttpServletRequestBuilder request = scroll(size);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+
+            String body = mockMvc.perform(request).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<String> page = JsonPath.read(body, "$.content[*].id");
+            hasNext = JsonPath.read(body, "$.hasNext");
+            cursor = JsonPath.read(body, "$.nextCursor");
+
+            ids.addAll(page);
+
+            if (hasNext) {
+                assertThat(page).hasSize(size);
+                assertThat(cursor).isNotBlank();
+            } else {
+                assertThat(cursor).isNull();
+            }
+        } while (hasNext);
+
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should walk to the end without skipping or repeating rows that share an expense date")
+    void testWalkWithDuplicateDates() throws Exception {
+        //the last page is full: only the missing extra row says there is nothing after it
+        assertThat(walk(2)).containsExactlyElementsOf(expected);
+        //the last page is short
+        assertThat(walk(4)).containsExactlyElementsOf(expected);
+        assertThat(walk(100)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("Should answer 400 for a cursor that doesn't decode to a position")
+    void testMalformedCursor() throws Exception {
+        for (String cursor : new String[]{"not-a-cursor", "%%%", "MjAyNS0xMy0wMXxub3QtYS11dWlk"}) {
+            mockMvc.perform(scroll(2).param("cursor", cursor)).andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.carlos.expensetracker.ingest;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.repository.ExpenseIngestRepository;
+import com.carlos.expensetracker.repository.UserRepository;
+import com.carlos.expensetracker.service.ExpenseRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExpenseIngestDrainerTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    //stands in for expenses with ON CONFLICT (id) DO NOTHING: only new ids come back
+    private final Set<UUID> stored = new HashSet<>();
+
+    private final ExpenseIngestRepository ingestRepository = mock(ExpenseIngestRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ExpenseRollupService rollupService = mock(ExpenseRollupService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(ingestRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<JournalEntry> entries = invocation.getArgument(0);
+            return entries.stream().map(JournalEntry::id).filter(stored::add).collect(Collectors.toSet());
+        });
+    }
+
+    private ExpenseIngestDrainer drainer(ExpenseJournal journal) {
+        ExpenseIngestDrainer drainer = new ExpenseIngestDrainer(
+                journal,
+                ingestRepository,
+                userRepository,
+                rollupService,
+                mock(ApplicationEventPublisher.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class))
+        );
+        ReflectionTestUtils.setField(drainer, "batchSize", 100);
+        return drainer;
+    }
+
+    @Test
+    @DisplayName("Should not count a batch twice when it is replayed after the checkpoint was lost")
+    void testReplayDrainedBatch() throws IOException {
+        ExpenseJournal journal = new ExpenseJournal(directory, DataSize.ofKilobytes(64));
+
+        for (int i = 0; i < 5; i++) {
+            journal.append(new JournalEntry(
+                    UUID.randomUUID(),
+                    USER_ID,
+                    new BigDecimal("9.99"),
+                    ExpenseCategory.GROCERIES,
+                    null,
+                    LocalDate.of(2025, 3, 1),
+                    System.currentTimeMillis()
+            ));
+        }
+
+        drainer(journal).drain();
+        journal.close();
+
+        //the rows committed but the checkpoint never reached the disk
+        Files.delete(directory.resolve("checkpoint"));
+        drainer(new ExpenseJournal(directory, DataSize.ofKilobytes(64))).drain();
+
+        verify(ingestRepository, times(2)).insertBatch(anyList());
+        verify(userRepository, times(1)).adjustExpenseCount(USER_ID, 5);
+        verify(rollupService, times(1)).recordCreated(
+                eq(USER_ID), ArgumentMatchers.<List<Expense>>argThat(expenses -> expenses.size() == 5));
+    }
+}
@@ -0,0 +1,192 @@
+package com.carlos.expensetracker.ingest;
+
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpenseJournalTest {
+
+    //a handful of records per segment, so a few dozen appends roll several times
+    private static final DataSize SEGMENT_SIZE = DataSize.ofBytes(512);
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    private ExpenseJournal open() throws IOException {
+        return new ExpenseJournal(directory, SEGMENT_SIZE);
+    }
+
+    private static List<JournalEntry> append(ExpenseJournal journal, int count) {
+        List<JournalEntry> entries = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            JournalEntry entry = new JournalEntry(
+                    UUID.randomUUID(),
+                    USER_ID,
+                    new BigDecimal("12.50").add(BigDecimal.valueOf(i)),
+                    ExpenseCategory.GROCERIES,
+                    "entry " + i,
+                    LocalDate.of(2025, 1, 1).plusDays(i),
+                    System.currentTimeMillis()
+            );
+            journal.append(entry);
+            entries.add(entry);
+        }
+
+        return entries;
+    }
+
+    //drains in small batches and moves the checkpoint after each, as the drainer does
+    private static List<JournalEntry> drain(ExpenseJournal journal, int batchSize) {
+        List<JournalEntry> drained = new ArrayList<>();
+        JournalBatch batch;
+
+        do {
+            batch = journal.read(batchSize);
+            drained.addAll(batch.entries());
+            journal.commit(batch.next());
+        } while (!batch.entries().isEmpty());
+
+        return drained;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static void overwrite(Path segment, int offset, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(bytes, offset);
+        }
+    }
+
+    //inverted rather than set: a fixed value may already be the byte that is there
+    private static void flip(Path segment, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer original = ByteBuffer.allocate(1);
+            channel.read(original, offset);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~original.get(0)}), offset);
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop a tail record whose checksum does not match and append after the last good one")
+    void testRecoverCrcMismatchedTail() throws IOException {
+        ExpenseJournal journal = open();
+        List<JournalEntry> written = append(journal, 3);
+        JournalPosition tail = journal.read(2).next();
+        journal.close();
+
+        //flip a payload byte of the third record
+        flip(segments().getLast(), tail.offset() + 8);
+
+        ExpenseJournal recovered = open();
+        assertThat(recovered.read(10).entries()).containsExactlyElementsOf(written.subList(0, 2));
+
+        JournalEntry next = append(recovered, 1).getFirst();
+        assertThat(recovered.read(10).entries()).containsExactly(written.get(0), written.get(1), next);
+    }
+
+    @Test
+    @DisplayName("Should treat a record with a length but no payload (torn write) as the end of the journal")
+    void testRecoverTornTail() throws IOException {
+        ExpenseJournal journal = open();
+        List<JournalEntry> written = append(journal, 2);
+        JournalPosition end = journal.read(10).next();
+        journal.close();
+
+        //crash after the length reached the page but before the crc and payload did
+        overwrite(segments().getLast(), end.offset(), ByteBuffer.allocate(4).putInt(0, 90));
+
+        ExpenseJournal recovered = open();
+        assertThat(recovered.read(10).entries()).containsExactlyElementsOf(written);
+
+        JournalEntry next = append(recovered, 1).getFirst();
+        assertThat(recovered.read(10).entries()).containsExactly(written.get(0), written.get(1), next);
+    }
+
+    @Test
+    @DisplayName("Should keep every segment a lagging reader still needs while the writer rolls over")
+    void testRolloverWithLaggingReader() throws IOException {
+        ExpenseJournal journal = open();
+        List<JournalEntry> written = new ArrayList<>(append(journal, 20));
+        assertThat(segments()).hasSizeGreaterThan(3);
+
+        //the reader is mid-segment while the writer keeps rolling ahead of it
+        JournalBatch first = journal.read(3);
+        journal.commit(first.next());
+        written.addAll(append(journal, 20));
+
+        List<JournalEntry> drained = new ArrayList<>(first.entries());
+        drained.addAll(drain(journal, 4));
+
+        assertThat(drained).containsExactlyElementsOf(written);
+        //drained segments are gone, the one being written stays
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should resume from the moved checkpoint after a restart, also once the old segments are deleted")
+    void testRestartAfterCheckpointMoved() throws IOException {
+        ExpenseJournal journal = open();
+        List<JournalEntry> written = append(journal, 20);
+
+        List<JournalEntry> drained = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            JournalBatch batch = journal.read(4);
+            drained.addAll(batch.entries());
+            journal.commit(batch.next());
+        }
+        JournalPosition checkpoint = journal.getCheckpoint();
+        journal.close();
+
+        ExpenseJournal restarted = open();
+        assertThat(restarted.getCheckpoint()).isEqualTo(checkpoint);
+
+        drained.addAll(drain(restarted, 5));
+        assertThat(drained).containsExactlyElementsOf(written);
+        restarted.close();
+
+        //fully drained: nothing comes back, and new appends continue after the checkpoint
+        ExpenseJournal again = open();
+        assertThat(again.read(10).entries()).isEmpty();
+
+        List<JournalEntry> more = append(again, 3);
+        assertThat(again.read(10).entries()).containsExactlyElementsOf(more);
+    }
+
+    @Test
+    @DisplayName("Should hand out a batch again with the same ids when the checkpoint was not committed")
+    void testReplayUncommittedBatch() throws IOException {
+        ExpenseJournal journal = open();
+        List<JournalEntry> written = append(journal, 5);
+
+        //the batch reached the database but the process died before commit()
+        assertThat(journal.read(5).entries()).containsExactlyElementsOf(written);
+        journal.close();
+
+        ExpenseJournal restarted = open();
+        assertThat(restarted.read(5).entries()).containsExactlyElementsOf(written);
+    }
+}
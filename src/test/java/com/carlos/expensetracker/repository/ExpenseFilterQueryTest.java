@@ -0,0 +1,130 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExpenseFilterQueryTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final String COUNT = "SELECT COUNT(e) FROM Expense e WHERE ";
+
+    private static ExpenseFilterRequest filter(
+            ExpenseCategory category,
+            List<ExpenseCategory> categories,
+            LocalDate startDate,
+            LocalDate endDate,
+            String description
+    ) {
+        return new ExpenseFilterRequest(category, categories, null, startDate, endDate, null, null, description, null);
+    }
+
+    private static ExpenseFilterQuery compile(ExpenseFilterRequest filter) {
+        return ExpenseFilterQuery.compile(USER_ID, filter, null);
+    }
+
+    //the where clause, as every statement of the query shares it
+    private static String where(ExpenseFilterQuery query) {
+        assertThat(query.count()).startsWith(COUNT);
+        return query.count().substring(COUNT.length());
+    }
+
+    @Test
+    @DisplayName("Should bound only the side of the date range that is set")
+    void testHalfOpenDateRanges() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+
+        ExpenseFilterQuery from = compile(filter(null, null, start, null, null));
+        assertThat(where(from)).isEqualTo("e.user.id = :userId AND e.expenseDate >= :startDate");
+        assertThat(from.parameters()).containsExactly(Map.entry("userId", USER_ID), Map.entry("startDate", start));
+
+        ExpenseFilterQuery until = compile(filter(null, null, null, end, null));
+        assertThat(where(until)).isEqualTo("e.user.id = :userId AND e.expenseDate <= :endDate");
+        assertThat(until.parameters()).containsExactly(Map.entry("userId", USER_ID), Map.entry("endDate", end));
+
+        ExpenseFilterQuery between = compile(filter(null, null, start, end, null));
+        assertThat(where(between)).isEqualTo("e.user.id = :userId AND e.expenseDate BETWEEN :startDate AND :endDate");
+        assertThat(between.parameters()).containsExactly(
+                Map.entry("userId", USER_ID), Map.entry("startDate", start), Map.entry("endDate", end));
+    }
+
+    @Test
+    @DisplayName("Should compile the same shape to the same text and parameter names, whatever the values")
+    void testSameShapeSameStatement() {
+        ExpenseFilterQuery first = ExpenseFilterQuery.compile(USER_ID, new ExpenseFilterRequest(
+                ExpenseCategory.GROCERIES, null, null, LocalDate.of(2025, 1, 1), null,
+                new BigDecimal("5.00"), null, "milk", null), null);
+        ExpenseFilterQuery second = ExpenseFilterQuery.compile(UUID.randomUUID(), new ExpenseFilterRequest(
+                ExpenseCategory.HEALTH, null, null, LocalDate.of(2024, 6, 15), null,
+                new BigDecimal("120.00"), null, "pharmacy", null), null);
+
+        assertThat(second.select(Sort.unsorted())).isEqualTo(first.select(Sort.unsorted()));
+        assertThat(second.count()).isEqualTo(first.count());
+        assertThat(second.parameters().keySet())
+                .containsExactly("userId", "startDate", "category", "minAmount", "description")
+                .containsExactlyElementsOf(first.parameters().keySet());
+        assertThat(second.parameters().values()).doesNotContainAnyElementsOf(first.parameters().values());
+    }
+
+    @Test
+    @DisplayName("Should compare a single category for equality and several with IN")
+    void testSingleCategoryVsList() {
+        ExpenseFilterQuery single = compile(filter(ExpenseCategory.GROCERIES, List.of(ExpenseCategory.GROCERIES), null, null, null));
+        assertThat(where(single)).isEqualTo("e.user.id = :userId AND e.category = :category");
+        assertThat(single.parameters()).containsEntry("category", ExpenseCategory.GROCERIES);
+
+        ExpenseFilterQuery several = compile(filter(ExpenseCategory.GROCERIES, List.of(ExpenseCategory.HEALTH), null, null, null));
+        assertThat(where(several)).isEqualTo("e.user.id = :userId AND e.category IN :categories");
+        assertThat(several.parameters())
+                .containsEntry("categories", EnumSet.of(ExpenseCategory.GROCERIES, ExpenseCategory.HEALTH))
+                .doesNotContainKey("category");
+    }
+
+    @Test
+    @DisplayName("Should escape LIKE wildcards and the escape character in the description")
+    void testLikeEscaping() {
+        ExpenseFilterQuery query = compile(filter(null, null, null, null, "  50%_OFF\\Sale "));
+
+        assertThat(where(query)).isEqualTo("e.user.id = :userId AND LOWER(e.description) LIKE :description ESCAPE '\\'");
+        assertThat(query.parameters()).containsEntry("description", "%50\\%\\_off\\\\sale%");
+    }
+
+    @Test
+    @DisplayName("Should reject a sort property outside the whitelist")
+    void testUnsupportedSort() {
+        ExpenseFilterQuery query = compile(null);
+
+        assertThatThrownBy(() -> query.select(Sort.by("user.password")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Unsupported sort property: user.password");
+    }
+
+    @Test
+    @DisplayName("Should break ties by id in the direction of the last sort order")
+    void testIdTieBreak() {
+        ExpenseFilterQuery query = compile(null);
+        String select = ExpenseRepository.SELECT_RESPONSE + "WHERE e.user.id = :userId ORDER BY ";
+
+        assertThat(query.select(Sort.unsorted())).isEqualTo(select + "e.expenseDate DESC, e.id DESC");
+        assertThat(query.select(Sort.by(Sort.Order.desc("expenseDate"), Sort.Order.asc("amount"))))
+                .isEqualTo(select + "e.expenseDate DESC, e.amount ASC, e.id ASC");
+        assertThat(query.select(Sort.by(Sort.Order.asc("category"), Sort.Order.desc("createdAt"))))
+                .isEqualTo(select + "e.category ASC, e.createdAt DESC, e.id DESC");
+        assertThat(query.parameters()).containsExactly(Map.entry("userId", USER_ID));
+    }
+}
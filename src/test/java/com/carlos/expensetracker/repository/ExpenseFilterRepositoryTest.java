@@ -0,0 +1,101 @@
+package com.carlos.expensetracker.repository;
+
+import com.carlos.expensetracker.dto.request.ExpenseFilterRequest;
+import com.carlos.expensetracker.dto.response.ExpenseResponse;
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//compiled filters run against a real database, through the same repository the service uses
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExpenseFilterRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = createUser();
+    }
+
+    private UUID createUser() {
+        String name = "filter-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("x")
+                .role(UserRole.USER)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private void create(UUID owner, String amount, ExpenseCategory category, LocalDate expenseDate, String description) {
+        expenseRepository.save(Expense.builder()
+                .user(userRepository.getReferenceById(owner))
+                .amount(new BigDecimal(amount))
+                .category(category)
+                .expenseDate(expenseDate)
+                .description(description)
+                .build());
+    }
+
+    private static List<String> descriptions(Slice<ExpenseResponse> page) {
+        return page.getContent().stream().map(ExpenseResponse::description).toList();
+    }
+
+    @Test
+    @DisplayName("Should page through the expenses matching every part of the filter, in the requested order")
+    void testFilteredPage() {
+        create(userId, "30.00", ExpenseCategory.GROCERIES, DAY, "50% off milk");
+        create(userId, "10.00", ExpenseCategory.HEALTH, DAY.plusDays(1), "pharmacy 50% off");
+        create(userId, "20.00", ExpenseCategory.GROCERIES, DAY.plusDays(2), "50% OFF bread");
+        //each misses one predicate: the wildcard is literal, the category, the date, the owner
+        create(userId, "15.00", ExpenseCategory.GROCERIES, DAY, "500 off");
+        create(userId, "25.00", ExpenseCategory.LEISURE, DAY, "50% off cinema");
+        create(userId, "35.00", ExpenseCategory.GROCERIES, DAY.minusDays(1), "50% off eggs");
+        create(createUser(), "5.00", ExpenseCategory.GROCERIES, DAY, "50% off, someone else's");
+
+        ExpenseFilterRequest filter = new ExpenseFilterRequest(
+                ExpenseCategory.GROCERIES, List.of(ExpenseCategory.HEALTH), null, DAY, null,
+                null, null, "0% OFF", null);
+        Sort byAmount = Sort.by("amount");
+
+        Slice<ExpenseResponse> first = expenseRepository.findByFilter(userId, filter, PageRequest.of(0, 2, byAmount));
+        assertThat(descriptions(first)).containsExactly("pharmacy 50% off", "50% OFF bread");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).allSatisfy(expense -> assertThat(expense.userId()).isEqualTo(userId));
+
+        Slice<ExpenseResponse> second = expenseRepository.findByFilter(userId, filter, first.nextPageable());
+        assertThat(descriptions(second)).containsExactly("50% off milk");
+        assertThat(second.hasNext()).isFalse();
+
+        assertThat(expenseRepository.countByFilter(userId, filter)).isEqualTo(3);
+    }
+}
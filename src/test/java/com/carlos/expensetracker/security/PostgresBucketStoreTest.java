@@ -0,0 +1,87 @@
+package com.carlos.expensetracker.security;
+
+import io.github.bucket4j.TimeMeter;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the shared store against h2 in postgres mode, on a clock the test moves
+public class PostgresBucketStoreTest {
+
+    private static final int MINUTE = 0;
+    private static final int HOUR = 1;
+
+    private final ManualClock clock = new ManualClock();
+    private PostgresBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE rate_limit_buckets (id VARCHAR(255) PRIMARY KEY, state BYTEA, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        store = new PostgresBucketStore(new PostgresProxyManager(dataSource, clock), jdbcTemplate, 10,
+                Duration.ofSeconds(5), clock);
+    }
+
+    @Test
+    @DisplayName("Should give unused reservations back, so a user slower than the lease keeps the full limit")
+    void testSlowUserKeepsLimit() {
+        //one request every 6 s - 600/h, every one of them on an expired lease
+        for (int i = 0; i < 1200; i++) {
+            assertThat(store.tryConsume("slow", 1).consumed()).isTrue();
+            clock.advance(6, TimeUnit.SECONDS);
+        }
+
+        long[] remaining = store.getRemaining("slow").orElseThrow();
+        assertThat(remaining[MINUTE]).isGreaterThanOrEqualTo(55);
+        assertThat(remaining[HOUR]).isGreaterThanOrEqualTo(990);
+
+        //and a heavy request still fits
+        assertThat(store.tryConsume("slow", 10).consumed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not admit more than the limit through reservations")
+    void testReservationsStayWithinLimit() {
+        int admitted = 0;
+
+        for (int i = 0; i < 100; i++) {
+            if (store.tryConsume("fast", 1).consumed()) {
+                admitted++;
+            }
+        }
+
+        assertThat(admitted).isEqualTo(60);
+    }
+
+    private static final class ManualClock implements TimeMeter {
+
+        private long nanos = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long amount, TimeUnit unit) {
+            nanos += unit.toNanos(amount);
+        }
+
+        @Override
+        public long currentTimeNanos() {
+            return nanos;
+        }
+
+        @Override
+        public boolean isWallClockBased() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.carlos.expensetracker.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitInterceptorTest {
+
+    static class Handlers {
+
+        @RateLimitCost(perPageSize = 50)
+        void list() {
+        }
+
+        @RateLimitCost(perDays = 180, openRangeDays = 30)
+        void summary() {
+        }
+
+        @RateLimitCost(value = 10, perDays = 180)
+        void export() {
+        }
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getDeclaredMethod(name));
+    }
+
+    @Test
+    @DisplayName("Should report the capped cost, the one actually charged")
+    void testCostIsCapped() throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("size", "100000");
+
+        long cost = RateLimitInterceptor.cost(handler("list"), request);
+
+        assertThat(cost).isEqualTo(60);
+        assertThat(cost).isEqualTo(RateLimitService.tokens(cost));
+    }
+
+    @Test
+    @DisplayName("Should charge a request without dates for the range its handler falls back to")
+    void testOpenRangePerHandler() throws NoSuchMethodException {
+        MockHttpServletRequest noDates = new MockHttpServletRequest();
+
+        assertThat(RateLimitInterceptor.cost(handler("summary"), noDates)).isEqualTo(1);
+        assertThat(RateLimitInterceptor.cost(handler("export"), noDates)).isEqualTo(12);
+
+        MockHttpServletRequest lastYear = new MockHttpServletRequest();
+        lastYear.setParameter("startDate", LocalDate.now().minusDays(365).toString());
+
+        assertThat(RateLimitInterceptor.cost(handler("summary"), lastYear)).isEqualTo(3);
+    }
+}
@@ -4,6 +4,16 @@ import com.carlos.expensetracker.exception.RateLimitingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -58,6 +68,26 @@ public class RateLimitServiceTest {
         assertThat(info.remainingPerHour()).isEqualTo(990);
     }
 
+    @Test
+    @DisplayName("Should take the request cost from both limits and report it when rejected")
+    void testWeightedCost() {
+        String userId = "weighted";
+
+        RateLimitService.RateLimitInfo info = rateLimitService.checkRateLimit(userId, 25);
+        rateLimitService.checkRateLimit(userId, 25);
+
+        assertThat(info.remainingPerMinute()).isEqualTo(35);
+        assertThat(info.remainingPerHour()).isEqualTo(975);
+
+        //10 tokens left: a request of 11 is rejected whole, and the 10 stay available
+        assertThatThrownBy(() -> rateLimitService.checkRateLimit(userId, 11))
+                .isInstanceOf(RateLimitingException.class)
+                .extracting(ex -> ((RateLimitingException) ex).getCost())
+                .isEqualTo(11L);
+
+        assertThat(rateLimitService.checkRateLimit(userId, 10).remainingPerMinute()).isZero();
+    }
+
     @Test
     @DisplayName("Should return full limits for new user")
     void testGetRateLimitInfoForNewUser() {
@@ -126,4 +156,92 @@ public class RateLimitServiceTest {
         assertThat(info1.remainingPerMinute()).isEqualTo(10);
         assertThat(info2.remainingPerMinute()).isEqualTo(50);
     }
+
+    @Test
+    @DisplayName("Should never allow more than the limit to concurrent requests of one user")
+    void testConcurrentRequestsSameUser() throws Exception {
+        String userId = "hotUser";
+        int threads = 8;
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            rateLimitService.checkRateLimit(userId);
+                            allowed.incrementAndGet();
+                        } catch (RateLimitingException ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(allowed.get()).isEqualTo(60);
+        assertThat(rejected.get()).isEqualTo(threads * 50 - 60);
+
+        //rejected requests took nothing from the hour limit either
+        assertThat(rateLimitService.getRateLimitInfo(userId).remainingPerHour()).isEqualTo(940);
+    }
+
+    //throughput floor: 400k checks over 100k distinct users within the timeout, every user kept
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    @DisplayName("Should keep up with many distinct users from several threads")
+    void testManyUsersConcurrently() throws Exception {
+        int users = 100_000;
+        int threads = 4;
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            //every thread walks all users from a different offset, so each user is hit by all threads
+            for (int t = 0; t < threads; t++) {
+                int offset = t * (users / threads);
+
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < users; i++) {
+                        try {
+                            rateLimitService.checkRateLimit("user-" + (offset + i) % users);
+                        } catch (RateLimitingException ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(rejected.get()).isZero();
+
+        for (int i = 0; i < users; i++) {
+            assertThat(rateLimitService.getRateLimitInfo("user-" + i).remainingPerHour())
+                    .isLessThan(1000);
+        }
+    }
 }
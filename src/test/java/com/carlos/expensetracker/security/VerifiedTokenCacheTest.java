@@ -0,0 +1,110 @@
+package com.carlos.expensetracker.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_000_000;
+    private static final long TTL = 60_000;
+
+    private static final String SECRET = "Qk1lO29WiKmgfcG/WTCZ/HQ/i+k/QbDm0m0A2f8TihM=";
+
+    private static TokenClaims claims(String email, long expiresAtMillis) {
+        return new TokenClaims(UUID.randomUUID(), email, email, "USER", expiresAtMillis);
+    }
+
+    private static String token(SecretKey key, Date expiration) {
+        return Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .claim(JwtTokenProvider.CLAIM_EMAIL, "user@example.com")
+                .expiration(expiration)
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Test
+    @DisplayName("Should drop an entry when the token expires, even before the TTL is up")
+    void testEntryBoundedByTokenExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(16, TTL);
+        TokenClaims claims = claims("a@example.com", NOW + 1_000);
+
+        cache.put("token", claims, NOW);
+
+        assertThat(cache.get("token", NOW + 999)).isSameAs(claims);
+        assertThat(cache.get("token", NOW + 1_000)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should drop an entry after the TTL when the token lives longer")
+    void testEntryExpiresAfterTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(16, TTL);
+        TokenClaims claims = claims("a@example.com", NOW + 10 * TTL);
+
+        cache.put("token", claims, NOW);
+
+        assertThat(cache.get("token", NOW + TTL - 1)).isSameAs(claims);
+        assertThat(cache.get("token", NOW + TTL)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should miss, never answer with another token's claims, when two tokens share a slot")
+    void testSlotCollision() {
+        //one slot: every token lands in it
+        VerifiedTokenCache single = new VerifiedTokenCache(1, TTL);
+        TokenClaims first = claims("first@example.com", NOW + TTL);
+        TokenClaims second = claims("second@example.com", NOW + TTL);
+
+        single.put("first", first, NOW);
+        assertThat(single.get("second", NOW)).isNull();
+
+        single.put("second", second, NOW);
+        assertThat(single.get("second", NOW)).isSameAs(second);
+        assertThat(single.get("first", NOW)).isNull();
+
+        //same hash code, different token
+        VerifiedTokenCache cache = new VerifiedTokenCache(16, TTL);
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        cache.put("Aa", first, NOW);
+        assertThat(cache.get("BB", NOW)).isNull();
+        assertThat(cache.get("Aa", NOW)).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Should verify a failed token again on every call, and a valid one only once")
+    void testFailedVerificationNotCached() {
+        JwtTokenProvider provider = spy(new JwtTokenProvider(SECRET, TTL));
+        Date later = new Date(System.currentTimeMillis() + TTL);
+
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+
+        String forged = token(Jwts.SIG.HS256.key().build(), later);
+        String expired = token(key, new Date(System.currentTimeMillis() - 1_000));
+        String valid = token(key, later);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(provider.verifyToken(forged)).isEmpty();
+            assertThat(provider.verifyToken(expired)).isEmpty();
+            assertThat(provider.verifyToken("not a token")).isEmpty();
+            assertThat(provider.verifyToken(valid)).isPresent();
+        }
+
+        //3 failing tokens twice each, the valid one once
+        verify(provider, times(7)).parseToken(anyString());
+        verify(provider, times(1)).parseToken(valid);
+    }
+}
@@ -0,0 +1,160 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.dto.response.DescriptionSuggestionResponse;
+import com.carlos.expensetracker.event.ExpensesChangedEvent;
+import com.carlos.expensetracker.event.ExpensesChangedEvent.DescriptionChange;
+import com.carlos.expensetracker.repository.ExpenseDescriptionRepository;
+import com.carlos.expensetracker.repository.ExpenseDescriptionRepository.DescriptionUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DescriptionSuggestionServiceTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private final ExpenseDescriptionRepository descriptionRepository = mock(ExpenseDescriptionRepository.class);
+
+    //rebuilds are queued here and run by the test, so it decides when they land
+    private final List<Runnable> rebuilds = new ArrayList<>();
+
+    private DescriptionSuggestionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DescriptionSuggestionServiceImpl(descriptionRepository);
+        ReflectionTestUtils.setField(service, "rebuildExecutor", (Executor) rebuilds::add);
+    }
+
+    private void loads(long coffeeUses) {
+        when(descriptionRepository.findMostUsed(eq(USER_ID), anyInt()))
+                .thenReturn(List.of(new DescriptionUsage("Coffee", coffeeUses)));
+    }
+
+    private List<DescriptionSuggestionResponse> suggest() {
+        return service.suggest(USER_ID, "co", 10);
+    }
+
+    @Test
+    @DisplayName("Should patch a loaded index with the descriptions a drain or an import added, without reloading")
+    void testPatchWithAdditions() {
+        loads(3);
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 3));
+
+        service.onExpensesChanged(new ExpensesChangedEvent(USER_ID, List.of(
+                new DescriptionChange(null, "coffee"),
+                new DescriptionChange(null, "Cookies"),
+                new DescriptionChange(null, null)
+        )));
+
+        assertThat(suggest()).containsExactly(
+                new DescriptionSuggestionResponse("Coffee", 4),
+                new DescriptionSuggestionResponse("Cookies", 1)
+        );
+        verify(descriptionRepository, times(1)).findMostUsed(eq(USER_ID), anyInt());
+        assertThat(rebuilds).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep answering from a stale index while it is rebuilt in the background")
+    void testStaleIndexRebuiltInBackground() {
+        loads(3);
+        suggest();
+
+        //a bulk delete: nothing says which descriptions went
+        service.onExpensesChanged(new ExpensesChangedEvent(USER_ID));
+        loads(1);
+
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 3));
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 3));
+        //only the first keystroke after the write starts a rebuild
+        assertThat(rebuilds).hasSize(1);
+        verify(descriptionRepository, times(1)).findMostUsed(eq(USER_ID), anyInt());
+
+        rebuilds.getFirst().run();
+
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 1));
+        verify(descriptionRepository, times(2)).findMostUsed(eq(USER_ID), anyInt());
+        assertThat(rebuilds).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should not count a write twice when it lands while the load that already saw it is in flight")
+    void testWriteRacingLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        //the load's query already sees the new expense: 4 uses, 3 before the write
+        when(descriptionRepository.findMostUsed(eq(USER_ID), anyInt())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of(new DescriptionUsage("Coffee", 4));
+        });
+
+        CompletableFuture<List<DescriptionSuggestionResponse>> firstKeystroke = CompletableFuture.supplyAsync(this::suggest);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //the write commits and its listener runs while the load is still going
+        ExpensesChangedEvent event = new ExpensesChangedEvent(USER_ID, new DescriptionChange(null, "Coffee"));
+        Thread write = Thread.ofPlatform().start(() -> service.onExpensesChanged(event));
+
+        //the listener waits for the load instead of finding no index and moving on
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (write.getState() != Thread.State.BLOCKED && write.getState() != Thread.State.WAITING
+                && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(write.isAlive()).isTrue();
+
+        release.countDown();
+        write.join(5_000);
+
+        assertThat(firstKeystroke.get(5, TimeUnit.SECONDS))
+                .containsExactly(new DescriptionSuggestionResponse("Coffee", 4));
+        //not patched to 5 - marked stale, so the next keystroke rebuilds it
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 4));
+        assertThat(rebuilds).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should leave a rebuilt index stale when a write reached the old one while the rebuild was loading")
+    void testWriteRacingRebuild() {
+        loads(3);
+        suggest();
+        service.onExpensesChanged(new ExpensesChangedEvent(USER_ID));
+        suggest();
+
+        //the rebuild's query runs before the next write commits, so it can't have seen it
+        when(descriptionRepository.findMostUsed(eq(USER_ID), anyInt())).thenAnswer(invocation -> {
+            service.onExpensesChanged(new ExpensesChangedEvent(USER_ID, new DescriptionChange(null, "Coffee")));
+            return List.of(new DescriptionUsage("Coffee", 3));
+        });
+        rebuilds.getFirst().run();
+
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 3));
+        assertThat(rebuilds).hasSize(2);
+
+        loads(4);
+        rebuilds.getLast().run();
+
+        assertThat(suggest()).containsExactly(new DescriptionSuggestionResponse("Coffee", 4));
+        assertThat(rebuilds).hasSize(2);
+    }
+}
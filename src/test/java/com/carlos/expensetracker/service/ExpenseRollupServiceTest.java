@@ -0,0 +1,233 @@
+package com.carlos.expensetracker.service;
+
+import com.carlos.expensetracker.entity.Expense;
+import com.carlos.expensetracker.entity.User;
+import com.carlos.expensetracker.entity.enums.ExpenseCategory;
+import com.carlos.expensetracker.entity.enums.UserRole;
+import com.carlos.expensetracker.repository.ExpenseRepository;
+import com.carlos.expensetracker.repository.UserRepository;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//rollup maintenance against a real database: after every step the rollups must equal
+//the same aggregate computed straight from expenses
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExpenseRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private ExpenseRollupService rollupService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID userId;
+
+    //H2 has no advisory locks - a single test thread doesn't need one
+    public static ResultSet advisoryXactLock(long lockKey) {
+        SimpleResultSet result = new SimpleResultSet();
+        result.addColumn("LOCKED", Types.INTEGER, 10, 0);
+        result.addRow(1);
+        return result;
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS pg_advisory_xact_lock FOR \""
+                + ExpenseRollupServiceTest.class.getName() + ".advisoryXactLock\"");
+
+        String name = "rollup-" + UUID.randomUUID();
+        userId = userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("x")
+                .role(UserRole.USER)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private Expense create(String amount, ExpenseCategory category, LocalDate expenseDate) {
+        return transactionTemplate.execute(status -> {
+            Expense expense = expenseRepository.save(Expense.builder()
+                    .user(userRepository.getReferenceById(userId))
+                    .amount(new BigDecimal(amount))
+                    .category(category)
+                    .expenseDate(expenseDate)
+                    .build());
+            rollupService.recordCreated(userId, expense);
+            return expense;
+        });
+    }
+
+    private void update(Expense expense, String amount, ExpenseCategory category, LocalDate expenseDate) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Expense managed = expenseRepository.findById(expense.getId()).orElseThrow();
+            LocalDate previousDate = managed.getExpenseDate();
+            ExpenseCategory previousCategory = managed.getCategory();
+            BigDecimal previousAmount = managed.getAmount();
+
+            managed.setAmount(new BigDecimal(amount));
+            managed.setCategory(category);
+            managed.setExpenseDate(expenseDate);
+
+            rollupService.recordUpdated(userId, previousDate, previousCategory, previousAmount,
+                    expenseDate, category, managed.getAmount());
+        });
+    }
+
+    private void delete(Expense expense) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Expense managed = expenseRepository.findById(expense.getId()).orElseThrow();
+            expenseRepository.delete(managed);
+            rollupService.recordDeleted(userId, managed.getExpenseDate(), managed.getCategory());
+        });
+    }
+
+    //one line per cell: date, category, total, count, min, max
+    private List<String> rollups() {
+        return jdbcTemplate.query("""
+                SELECT expense_date, category, total_amount, expense_count, min_amount, max_amount
+                FROM expense_daily_rollups WHERE user_id = ? ORDER BY expense_date, category
+                """, (rs, rowNum) -> cell(rs), userId);
+    }
+
+    private List<String> aggregate() {
+        return jdbcTemplate.query("""
+                SELECT expense_date, category, SUM(amount) AS total_amount, COUNT(*) AS expense_count,
+                       MIN(amount) AS min_amount, MAX(amount) AS max_amount
+                FROM expenses WHERE user_id = ? GROUP BY expense_date, category ORDER BY expense_date, category
+                """, (rs, rowNum) -> cell(rs), userId);
+    }
+
+    private static String cell(ResultSet rs) throws SQLException {
+        return rs.getObject("expense_date", LocalDate.class) + " " + rs.getString("category")
+                + " " + scaled(rs.getBigDecimal("total_amount")) + " " + rs.getLong("expense_count")
+                + " " + scaled(rs.getBigDecimal("min_amount")) + " " + scaled(rs.getBigDecimal("max_amount"));
+    }
+
+    private static BigDecimal scaled(BigDecimal value) {
+        return value.setScale(2, RoundingMode.UNNECESSARY);
+    }
+
+    private void assertRollupsMatchExpenses() {
+        assertThat(rollups()).containsExactlyElementsOf(aggregate());
+    }
+
+    @Test
+    @DisplayName("Should keep rollups equal to the expenses through create, a move between cells and delete")
+    void testCreateMoveDelete() {
+        Expense first = create("10.00", ExpenseCategory.GROCERIES, DAY);
+        create("25.50", ExpenseCategory.GROCERIES, DAY);
+        assertThat(rollups()).containsExactly(DAY + " GROCERIES 35.50 2 10.00 25.50");
+        assertRollupsMatchExpenses();
+
+        //moves to another day and category: the old cell shrinks, a new one appears
+        update(first, "12.00", ExpenseCategory.LEISURE, DAY.plusDays(1));
+        assertThat(rollups()).containsExactly(
+                DAY + " GROCERIES 25.50 1 25.50 25.50",
+                DAY.plusDays(1) + " LEISURE 12.00 1 12.00 12.00"
+        );
+        assertRollupsMatchExpenses();
+
+        //the last expense of a cell takes the cell with it
+        delete(first);
+        assertThat(rollups()).containsExactly(DAY + " GROCERIES 25.50 1 25.50 25.50");
+        assertRollupsMatchExpenses();
+    }
+
+    @Test
+    @DisplayName("Should recompute min and max when the extreme expense of a cell is deleted or lowered")
+    void testMinMaxRecompute() {
+        Expense low = create("5.00", ExpenseCategory.GROCERIES, DAY);
+        create("10.00", ExpenseCategory.GROCERIES, DAY);
+        Expense high = create("20.00", ExpenseCategory.GROCERIES, DAY);
+
+        delete(high);
+        assertThat(rollups()).containsExactly(DAY + " GROCERIES 15.00 2 5.00 10.00");
+
+        delete(low);
+        assertThat(rollups()).containsExactly(DAY + " GROCERIES 10.00 1 10.00 10.00");
+
+        //same cell, lower amount: max can't be decremented, so the cell is recomputed
+        Expense another = create("30.00", ExpenseCategory.GROCERIES, DAY);
+        update(another, "1.00", ExpenseCategory.GROCERIES, DAY);
+        assertThat(rollups()).containsExactly(DAY + " GROCERIES 11.00 2 1.00 10.00");
+        assertRollupsMatchExpenses();
+    }
+
+    @Test
+    @DisplayName("Should fold a batch of creates into one update per cell")
+    void testBatchCreate() {
+        create("7.00", ExpenseCategory.GROCERIES, DAY);
+
+        transactionTemplate.executeWithoutResult(status -> rollupService.recordCreated(userId, List.of(
+                expenseRepository.save(Expense.builder().user(userRepository.getReferenceById(userId))
+                        .amount(new BigDecimal("3.00")).category(ExpenseCategory.GROCERIES).expenseDate(DAY).build()),
+                expenseRepository.save(Expense.builder().user(userRepository.getReferenceById(userId))
+                        .amount(new BigDecimal("9.00")).category(ExpenseCategory.GROCERIES).expenseDate(DAY).build()),
+                expenseRepository.save(Expense.builder().user(userRepository.getReferenceById(userId))
+                        .amount(new BigDecimal("4.00")).category(ExpenseCategory.LEISURE).expenseDate(DAY).build())
+        )));
+
+        assertThat(rollups()).containsExactly(
+                DAY + " GROCERIES 19.00 3 3.00 9.00",
+                DAY + " LEISURE 4.00 1 4.00 4.00"
+        );
+        assertRollupsMatchExpenses();
+    }
+
+    @Test
+    @DisplayName("Should detect drifted, missing and orphaned cells and repair them")
+    void testCheckAndRepair() {
+        create("10.00", ExpenseCategory.GROCERIES, DAY);
+        create("20.00", ExpenseCategory.LEISURE, DAY);
+        create("30.00", ExpenseCategory.HEALTH, DAY);
+
+        assertThat(rollupService.checkAndRepair(userId)).isZero();
+
+        //a wrong total, a cell that lost its row, and a row without expenses
+        jdbcTemplate.update(
+                "UPDATE expense_daily_rollups SET total_amount = 99 WHERE user_id = ? AND category = 'GROCERIES'", userId);
+        jdbcTemplate.update("DELETE FROM expense_daily_rollups WHERE user_id = ? AND category = 'LEISURE'", userId);
+        jdbcTemplate.update("""
+                INSERT INTO expense_daily_rollups
+                    (user_id, expense_date, category, total_amount, expense_count, min_amount, max_amount)
+                VALUES (?, ?, 'GROCERIES', 1, 1, 1, 1)
+                """, userId, DAY.minusDays(1));
+
+        assertThat(rollupService.checkAndRepair(userId)).isEqualTo(3);
+        assertRollupsMatchExpenses();
+        assertThat(rollupService.checkAndRepair(userId)).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.carlos.expensetracker.util;
+
+import com.carlos.expensetracker.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CsvRecordReaderTest {
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv), ';', 16, 4);
+    }
+
+    @Test
+    @DisplayName("Should read quoted fields with escapes and line breaks")
+    void testQuotedFields() throws IOException {
+        CsvRecordReader csv = reader("a;\"b;\"\"c\"\"\";\"d\ne\"\r\n\nf;g\n");
+
+        assertThat(csv.next()).containsExactly("a", "b;\"c\"", "d\ne");
+        assertThat(csv.getRecordLine()).isEqualTo(1);
+
+        assertThat(csv.next()).containsExactly("f", "g");
+        assertThat(csv.getRecordLine()).isEqualTo(4);
+
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should stop an unterminated quote at the field length cap, naming the line")
+    void testUnterminatedQuote() throws IOException {
+        CsvRecordReader csv = reader("a;b\n\"never closed;" + "x".repeat(10_000));
+
+        assertThat(csv.next()).containsExactly("a", "b");
+        assertThatThrownBy(csv::next)
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Line 2")
+                .hasMessageContaining("16 characters");
+    }
+
+    @Test
+    @DisplayName("Should stop a record with too many fields")
+    void testTooManyFields() {
+        CsvRecordReader csv = reader(";".repeat(10_000));
+
+        assertThatThrownBy(csv::next)
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Line 1")
+                .hasMessageContaining("more than 4 fields");
+    }
+
+    @Test
+    @DisplayName("Should accept fields and records right at the caps")
+    void testAtCaps() throws IOException {
+        String field = "y".repeat(16);
+
+        List<String> record = reader(String.join(";", field, field, field, field)).next();
+
+        assertThat(record).hasSize(4).allMatch(field::equals);
+    }
+}